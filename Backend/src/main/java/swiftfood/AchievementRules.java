@@ -0,0 +1,102 @@
+package swiftfood;
+
+import java.util.*;
+
+/**
+ * AchievementRules decides which achievements a player has earned.
+ *
+ * Each rule unlocks one achievement when a counter falls within a range, e.g.
+ * "completed tasks at least 1" or "completed level equal to 3". Rules are
+ * compiled once into flat arrays grouped by counter, so an event only checks
+ * the rules on the counters it touched, and skips them entirely when every
+ * achievement those rules grant is already unlocked.
+ */
+public class AchievementRules {
+    /** The values rules can test; callers report each one an event changes. */
+    public enum Counter {
+        /** Total tasks the player has completed. */
+        COMPLETED_TASKS,
+        /** Id of the level that was just completed. */
+        COMPLETED_LEVEL,
+        /** Seconds from joining to the level that was just completed. */
+        SECONDS_TO_LEVEL
+    }
+    
+    private static final Counter[] COUNTERS = Counter.values();
+    
+    // Per counter: each rule's inclusive range and the achievement bit it grants
+    private final long[][] min = new long[COUNTERS.length][];
+    private final long[][] max = new long[COUNTERS.length][];
+    private final long[][] bits = new long[COUNTERS.length][];
+    // Per counter: every bit its rules can grant
+    private final long[] grantable = new long[COUNTERS.length];
+    
+    private AchievementRules(List<long[]> rules) {
+        for (Counter counter : COUNTERS) {
+            int c = counter.ordinal();
+            int n = 0;
+            for (long[] rule : rules) {
+                if (rule[0] == c) n++;
+            }
+            min[c] = new long[n];
+            max[c] = new long[n];
+            bits[c] = new long[n];
+            int i = 0;
+            for (long[] rule : rules) {
+                if (rule[0] != c) continue;
+                min[c][i] = rule[1];
+                max[c][i] = rule[2];
+                bits[c][i] = rule[3];
+                grantable[c] |= rule[3];
+                i++;
+            }
+        }
+    }
+    
+    /**
+     * Evaluates the rules on one counter.
+     *
+     * @param unlocked the player's current achievement bits
+     * @return the bits of achievements newly earned, 0 when there are none
+     */
+    public long evaluate(Counter counter, long value, long unlocked) {
+        int c = counter.ordinal();
+        if ((grantable[c] & ~unlocked) == 0) return 0;
+        long earned = 0;
+        long[] mins = min[c];
+        long[] maxes = max[c];
+        long[] grants = bits[c];
+        for (int i = 0; i < grants.length; i++) {
+            if (value >= mins[i] && value <= maxes[i]) earned |= grants[i];
+        }
+        return earned & ~unlocked;
+    }
+    
+    /** Collects rules; each names an achievement from {@link Achievements}. */
+    public static class Builder {
+        private final List<long[]> rules = new ArrayList<>();
+        
+        public Builder atLeast(String achievement, Counter counter, long min) {
+            return between(achievement, counter, min, Long.MAX_VALUE);
+        }
+        
+        public Builder atMost(String achievement, Counter counter, long max) {
+            return between(achievement, counter, Long.MIN_VALUE, max);
+        }
+        
+        public Builder equalTo(String achievement, Counter counter, long value) {
+            return between(achievement, counter, value, value);
+        }
+        
+        public Builder between(String achievement, Counter counter, long min, long max) {
+            long bit = Achievements.bit(achievement);
+            if (bit == 0) throw new IllegalArgumentException("Unknown achievement: " + achievement);
+            rules.add(new long[] { counter.ordinal(), min, max, bit });
+            return this;
+        }
+        
+        public AchievementRules build() {
+            return new AchievementRules(rules);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package swiftfood;
+
+/**
+ * Achievements is the registry of every achievement a player can unlock.
+ * Each one has a fixed index, so a player's unlocked achievements fit in the
+ * bits of a single long instead of a map of names per player.
+ */
+public final class Achievements {
+    // In the order players' JSON has always listed them
+    private static final String[] NAMES = {
+        "Noodle Ninja",
+        "Burger Master",
+        "Dessert Wizard",
+        "First Steps",
+        "Pizza Pro",
+        "Speed Chef"
+    };
+    
+    private Achievements() {
+    }
+    
+    public static int count() {
+        return NAMES.length;
+    }
+    
+    public static String name(int index) {
+        return NAMES[index];
+    }
+    
+    /** The index of the named achievement, or -1 if there is none. */
+    public static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) return i;
+        }
+        return -1;
+    }
+    
+    public static boolean exists(String name) {
+        return indexOf(name) >= 0;
+    }
+    
+    /** The bit for the named achievement, or 0 if there is none. */
+    public static long bit(String name) {
+        int index = indexOf(name);
+        return index < 0 ? 0 : 1L << index;
+    }
+}
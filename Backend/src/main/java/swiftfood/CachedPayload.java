@@ -0,0 +1,112 @@
+package swiftfood;
+
+import java.nio.*;
+import java.security.*;
+import java.util.zip.*;
+
+/**
+ * CachedPayload is an immutable, pre-encoded response body with a strong
+ * ETag derived from its bytes. It is built once and served as-is until the
+ * data behind it changes. Large payloads are also compressed once, at the
+ * best level, so serving them compressed costs no CPU per request.
+ */
+public final class CachedPayload {
+    private final String contentType;
+    private final String etag;
+    // Body and ETag per ResponseCompressor.Encoding; a null body means that coding is not offered
+    private final ByteBuffer[] encodedBodies = new ByteBuffer[ResponseCompressor.Encoding.values().length];
+    private final String[] encodedETags = new String[encodedBodies.length];
+    private final boolean compressed;
+    
+    /** A payload that is only ever served uncompressed. */
+    public CachedPayload(byte[] bytes, String contentType) {
+        this(bytes, contentType, Integer.MAX_VALUE);
+    }
+    
+    /** A payload that is precompressed when it is at least {@code compressMinSize} bytes. */
+    public CachedPayload(byte[] bytes, String contentType, int compressMinSize) {
+        this(ByteBuffer.wrap(bytes), contentType, compressMinSize);
+    }
+    
+    /**
+     * A payload over any buffer, such as a memory-mapped file; the buffer's
+     * remaining bytes are the body and are served without being copied.
+     */
+    public CachedPayload(ByteBuffer body, String contentType, int compressMinSize) {
+        this.contentType = contentType;
+        this.etag = computeETag(body.duplicate());
+        boolean anyCompressed = false;
+        for (ResponseCompressor.Encoding encoding : ResponseCompressor.Encoding.values()) {
+            ByteBuffer encoded = body.asReadOnlyBuffer();
+            if (encoding != ResponseCompressor.Encoding.IDENTITY) {
+                byte[] compressed = body.remaining() < compressMinSize ? null
+                        : ResponseCompressor.compressOnce(body, encoding, Deflater.BEST_COMPRESSION);
+                if (compressed == null) continue;
+                encoded = ByteBuffer.wrap(compressed).asReadOnlyBuffer();
+                anyCompressed = true;
+            }
+            // Each coding is a different representation, so it gets its own strong validator
+            encodedBodies[encoding.ordinal()] = encoded;
+            encodedETags[encoding.ordinal()] = encoding.token() == null ? etag
+                    : etag.substring(0, etag.length() - 1) + "-" + encoding.token() + "\"";
+        }
+        this.compressed = anyCompressed;
+    }
+    
+    // Getters
+    public String getContentType() { return contentType; }
+    public String getETag() { return etag; }
+    
+    /** True when the body is available in this coding. */
+    public boolean offers(ResponseCompressor.Encoding encoding) {
+        return encodedBodies[encoding.ordinal()] != null;
+    }
+    
+    /** A fresh read-only view of the body in this coding, or null when it is not offered. */
+    public ByteBuffer getBody(ResponseCompressor.Encoding encoding) {
+        ByteBuffer body = encodedBodies[encoding.ordinal()];
+        return body != null ? body.duplicate() : null;
+    }
+    
+    public String getETag(ResponseCompressor.Encoding encoding) {
+        return encodedETags[encoding.ordinal()];
+    }
+    
+    /** True when at least one compressed coding is available. */
+    public boolean isCompressed() { return compressed; }
+    
+    /**
+     * True when an If-None-Match header value names this payload's ETag in
+     * any coding, using the weak comparison RFC 7232 prescribes for
+     * If-None-Match. All codings hold the same content, so a client holding
+     * any of them is up to date.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) return false;
+        if (ifNoneMatch.trim().equals("*")) return true;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            for (String encodedETag : encodedETags) {
+                if (tag.equals(encodedETag)) return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String computeETag(ByteBuffer bytes) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(bytes);
+            byte[] digest = sha256.digest();
+            StringBuilder tag = new StringBuilder("\"");
+            for (int i = 0; i < 12; i++) {
+                tag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+                tag.append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return tag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * ColdPlayerFile holds players evicted from memory, in PlayerData's binary
+ * snapshot format. Records are appended to a single file; an in-memory table
+ * of primitive longs maps each player key to its record's offset and length,
+ * which costs 16 bytes per cold player instead of a whole PlayerData.
+ *
+ * The file is only a cache of the journal and snapshots, so it is recreated
+ * empty on every start. When more than half of it is dead records it is
+ * compacted into a fresh file.
+ */
+public class ColdPlayerFile implements Closeable {
+    private static final int LENGTH_BITS = 24;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    private static final long MIN_COMPACT_BYTES = 64L * 1024 * 1024;
+    private static final long EMPTY = 0;
+    
+    private final Path path;
+    private final long minCompactBytes;
+    // Reads share the lock; appends, removals and compaction take it exclusively
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private long end;
+    private long deadBytes;
+    
+    // Open-addressing table: key -> (offset << LENGTH_BITS) | length
+    private long[] keys = new long[1024];
+    private long[] locations = new long[1024];
+    private int size;
+    
+    public ColdPlayerFile(Path path) throws IOException {
+        this(path, MIN_COMPACT_BYTES);
+    }
+    
+    /** A file compacted once it holds more than {@code minCompactBytes} of dead records. */
+    ColdPlayerFile(Path path, long minCompactBytes) throws IOException {
+        this.path = path;
+        this.minCompactBytes = minCompactBytes;
+        Files.deleteIfExists(path);
+        this.channel = open(path);
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean contains(long key) {
+        lock.readLock().lock();
+        try {
+            return slotOf(key) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /** The stored record for the key, or null if the player is not cold. */
+    public byte[] get(long key) throws IOException {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(key);
+            if (slot < 0) return null;
+            return read(locations[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public void put(long key, byte[] record) throws IOException {
+        if (record.length > LENGTH_MASK) throw new IOException("Player record too large: " + record.length);
+        lock.writeLock().lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            long offset = end;
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+            long previous = insert(key, (end << LENGTH_BITS) | record.length);
+            if (previous != EMPTY) deadBytes += previous & LENGTH_MASK;
+            end = offset;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(long key) throws IOException {
+        lock.writeLock().lock();
+        try {
+            long removed = delete(key);
+            if (removed == EMPTY) return;
+            deadBytes += removed & LENGTH_MASK;
+            if (deadBytes > minCompactBytes && deadBytes * 2 > end) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /** Receives each cold record, for snapshots and startup. */
+    public interface RecordVisitor {
+        void visit(long key, byte[] record) throws IOException;
+    }
+    
+    /** Visits every cold record; callers must keep the file from changing meanwhile. */
+    public void forEach(RecordVisitor visitor) throws IOException {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) visitor.visit(keys[i], read(locations[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private byte[] read(long location) throws IOException {
+        long offset = location >>> LENGTH_BITS;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (location & LENGTH_MASK));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Cold player record cut short in " + path);
+            }
+        }
+        return buffer.array();
+    }
+    
+    // Copies the live records into a new file, then swaps it in
+    private void compact() throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(temp);
+        FileChannel target = open(temp);
+        long offset = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == EMPTY) continue;
+            long length = locations[i] & LENGTH_MASK;
+            long copied = 0;
+            while (copied < length) {
+                copied += channel.transferTo((locations[i] >>> LENGTH_BITS) + copied, length - copied, target);
+            }
+            locations[i] = (offset << LENGTH_BITS) | length;
+            offset += length;
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        channel = target;
+        end = offset;
+        deadBytes = 0;
+    }
+    
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    // Primitive long -> long table, linear probing with backward-shift deletion
+    
+    private static int home(long key, int mask) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+    
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = home(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+            if (keys[i] == EMPTY) return -1;
+        }
+    }
+    
+    private long insert(long key, long location) {
+        if ((size + 1) * 4 > keys.length * 3) resize();
+        int mask = keys.length - 1;
+        int i = home(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                long previous = locations[i];
+                locations[i] = location;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        locations[i] = location;
+        size++;
+        return EMPTY;
+    }
+    
+    private long delete(long key) {
+        int gap = slotOf(key);
+        if (gap < 0) return EMPTY;
+        long removed = locations[gap];
+        int mask = keys.length - 1;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                locations[gap] = locations[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        locations[gap] = EMPTY;
+        size--;
+        return removed;
+    }
+    
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldLocations = locations;
+        keys = new long[oldKeys.length * 2];
+        locations = new long[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) insert(oldKeys[i], oldLocations[i]);
+        }
+    }
+}
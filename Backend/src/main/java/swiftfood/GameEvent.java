@@ -0,0 +1,138 @@
+package swiftfood;
+
+import java.util.*;
+
+/**
+ * GameEvent is one entry of a batched event request: a task or level
+ * completion, a coin spend or an achievement unlock for one player.
+ */
+public class GameEvent {
+    public enum Type {
+        COMPLETE_TASK("complete-task"),
+        COMPLETE_LEVEL("complete-level"),
+        SPEND_COINS("spend-coins"),
+        UNLOCK_ACHIEVEMENT("unlock-achievement");
+        
+        private final String wireName;
+        
+        Type(String wireName) {
+            this.wireName = wireName;
+        }
+        
+        public String getWireName() { return wireName; }
+    }
+    
+    static final int MAX_BATCH_SIZE = 1000;
+    
+    private static final Type[] TYPES = Type.values();
+    private static final String[] TYPE_NAMES = new String[TYPES.length];
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].wireName;
+        }
+    }
+    private static final String[] BATCH_FIELDS = { "playerId", "events" };
+    private static final String[] EVENT_FIELDS = { "type", "playerId", "levelId", "taskIndex", "amount", "achievement" };
+    
+    private Type type;
+    private String playerId;
+    private int levelId = -1;
+    private int taskIndex = -1;
+    private int amount;
+    private String achievement;
+    
+    /**
+     * Parses a batch: {"playerId": optional default, "events": [ {...}, ... ]}.
+     * The whole batch is validated before anything is applied.
+     *
+     * @throws IllegalArgumentException if the batch is malformed
+     */
+    public static List<GameEvent> parseBatch(CharSequence body) {
+        List<GameEvent> events = new ArrayList<>();
+        String defaultPlayerId = null;
+        JsonReader json = JsonReader.local(body);
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName(BATCH_FIELDS)) {
+                case 0:
+                    defaultPlayerId = json.nextString();
+                    break;
+                case 1:
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        if (events.size() == MAX_BATCH_SIZE) {
+                            throw new IllegalArgumentException("A batch holds at most " + MAX_BATCH_SIZE + " events");
+                        }
+                        events.add(parseEvent(json));
+                    }
+                    json.endArray();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown batch field");
+            }
+        }
+        json.endObject();
+        json.endDocument();
+        
+        for (int i = 0; i < events.size(); i++) {
+            GameEvent event = events.get(i);
+            if (event.playerId == null) event.playerId = defaultPlayerId;
+            event.validate(i);
+        }
+        return events;
+    }
+    
+    private static GameEvent parseEvent(JsonReader json) {
+        GameEvent event = new GameEvent();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName(EVENT_FIELDS)) {
+                case 0: event.type = parseType(json); break;
+                case 1: event.playerId = json.nextString(); break;
+                case 2: event.levelId = json.nextInt(); break;
+                case 3: event.taskIndex = json.nextInt(); break;
+                case 4: event.amount = json.nextInt(); break;
+                case 5: event.achievement = json.nextString(); break;
+                default: throw new IllegalArgumentException("Unknown event field");
+            }
+        }
+        json.endObject();
+        return event;
+    }
+    
+    private static Type parseType(JsonReader json) {
+        String name = json.nextString();
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if (TYPE_NAMES[i].equals(name)) return TYPES[i];
+        }
+        throw new IllegalArgumentException("Unknown event type: " + name);
+    }
+    
+    private void validate(int index) {
+        String where = "Event " + index + ": ";
+        if (type == null) throw new IllegalArgumentException(where + "type is required");
+        if (playerId == null) throw new IllegalArgumentException(where + "playerId is required");
+        switch (type) {
+            case COMPLETE_TASK:
+                if (levelId < 0 || taskIndex < 0) throw new IllegalArgumentException(where + "levelId and taskIndex are required");
+                break;
+            case COMPLETE_LEVEL:
+                if (levelId < 0) throw new IllegalArgumentException(where + "levelId is required");
+                break;
+            case SPEND_COINS:
+                if (amount <= 0) throw new IllegalArgumentException(where + "amount must be positive");
+                break;
+            case UNLOCK_ACHIEVEMENT:
+                if (achievement == null) throw new IllegalArgumentException(where + "achievement is required");
+                break;
+        }
+    }
+    
+    // Getters
+    public Type getType() { return type; }
+    public String getPlayerId() { return playerId; }
+    public int getLevelId() { return levelId; }
+    public int getTaskIndex() { return taskIndex; }
+    public int getAmount() { return amount; }
+    public String getAchievement() { return achievement; }
+}
@@ -0,0 +1,199 @@
+package swiftfood;
+
+import java.util.*;
+
+/**
+ * HttpBodyReader decodes a request body as its bytes arrive, honouring either
+ * Content-Length or chunked Transfer-Encoding. Bytes are copied once, straight
+ * into the body array; nothing is split into lines or buffered twice.
+ *
+ * Both connection engines feed it whatever they have read so far and keep
+ * going until {@link #isComplete()}.
+ */
+public class HttpBodyReader {
+    public static final int DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+    
+    public enum Status { OK, TOO_LARGE, MALFORMED }
+    
+    private enum State { SIZE, SIZE_EXTENSION, DATA, DATA_CR, DATA_LF, TRAILER, TRAILER_LINE, DONE }
+    
+    private static final byte[] EMPTY = new byte[0];
+    private static final int INITIAL_CHUNKED_CAPACITY = 1024;
+    
+    private final int maxBodySize;
+    private Status status;
+    private boolean chunked;
+    private State state;
+    private byte[] body;
+    private int length;
+    private long remaining;
+    private long chunkSize;
+    private int sizeDigits;
+    private boolean sawCr;
+    
+    public HttpBodyReader(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+    
+    /**
+     * Prepares to read the body of the request whose head was just parsed.
+     */
+    public void begin(HttpRequestParser head) {
+        status = Status.OK;
+        length = 0;
+        sawCr = false;
+        chunked = false;
+        
+        if (head.hasHeader("Transfer-Encoding")) {
+            if (!head.headerEquals("Transfer-Encoding", "chunked") || head.hasHeader("Content-Length")) {
+                // Only plain chunked coding is supported; mixing it with Content-Length is a smuggling vector
+                fail(Status.MALFORMED);
+                return;
+            }
+            chunked = true;
+            body = EMPTY;
+            startChunkSize();
+            return;
+        }
+        
+        long contentLength = head.contentLength();
+        if (contentLength < 0) {
+            fail(Status.MALFORMED);
+        } else if (contentLength > maxBodySize) {
+            fail(Status.TOO_LARGE);
+        } else {
+            body = contentLength == 0 ? EMPTY : new byte[(int) contentLength];
+            remaining = contentLength;
+            state = contentLength == 0 ? State.DONE : State.DATA;
+        }
+    }
+    
+    /**
+     * Consumes body bytes from {@code data[offset, offset + count)}.
+     *
+     * @return how many bytes belonged to this body; the rest are the next request's
+     */
+    public int feed(byte[] data, int offset, int count) {
+        int pos = offset;
+        int end = offset + count;
+        while (pos < end && state != State.DONE && status == Status.OK) {
+            switch (state) {
+                case DATA: {
+                    int n = (int) Math.min(remaining, end - pos);
+                    append(data, pos, n);
+                    pos += n;
+                    remaining -= n;
+                    if (remaining == 0) {
+                        state = chunked ? State.DATA_CR : State.DONE;
+                    }
+                    break;
+                }
+                case SIZE: {
+                    byte b = data[pos++];
+                    int digit = Character.digit(b, 16);
+                    if (digit >= 0) {
+                        if (++sizeDigits > 8) {
+                            fail(Status.TOO_LARGE);
+                        }
+                        chunkSize = chunkSize * 16 + digit;
+                    } else if (sizeDigits > 0 && (b == ';' || b == ' ' || b == '\t')) {
+                        state = State.SIZE_EXTENSION;
+                    } else if (sizeDigits > 0 && b == '\r') {
+                        sawCr = true;
+                        state = State.SIZE_EXTENSION;
+                    } else {
+                        fail(Status.MALFORMED);
+                    }
+                    break;
+                }
+                case SIZE_EXTENSION: {
+                    byte b = data[pos++];
+                    if (b == '\n') {
+                        if (!sawCr) {
+                            fail(Status.MALFORMED);
+                        } else if (length + chunkSize > maxBodySize) {
+                            fail(Status.TOO_LARGE);
+                        } else if (chunkSize == 0) {
+                            sawCr = false;
+                            state = State.TRAILER;
+                        } else {
+                            remaining = chunkSize;
+                            state = State.DATA;
+                        }
+                    } else {
+                        sawCr = b == '\r';
+                    }
+                    break;
+                }
+                case DATA_CR:
+                    if (data[pos++] != '\r') fail(Status.MALFORMED);
+                    state = State.DATA_LF;
+                    break;
+                case DATA_LF:
+                    if (data[pos++] != '\n') fail(Status.MALFORMED);
+                    startChunkSize();
+                    break;
+                case TRAILER: {
+                    // At the start of a trailer line: CRLF ends the body, anything else is a trailer field
+                    byte b = data[pos++];
+                    if (b == '\r') {
+                        sawCr = true;
+                    } else if (b == '\n' && sawCr) {
+                        state = State.DONE;
+                    } else {
+                        sawCr = false;
+                        state = State.TRAILER_LINE;
+                    }
+                    break;
+                }
+                case TRAILER_LINE: {
+                    byte b = data[pos++];
+                    if (b == '\n' && sawCr) {
+                        sawCr = false;
+                        state = State.TRAILER;
+                    } else {
+                        sawCr = b == '\r';
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return pos - offset;
+    }
+    
+    public boolean isComplete() {
+        return status == Status.OK && state == State.DONE;
+    }
+    
+    public Status status() {
+        return status;
+    }
+    
+    /** The decoded body, sized exactly to its length. */
+    public byte[] body() {
+        return length == body.length ? body : Arrays.copyOf(body, length);
+    }
+    
+    private void startChunkSize() {
+        chunkSize = 0;
+        sizeDigits = 0;
+        sawCr = false;
+        state = State.SIZE;
+    }
+    
+    private void append(byte[] data, int offset, int count) {
+        if (length + count > body.length) {
+            int capacity = Math.max(Math.max(body.length * 2, INITIAL_CHUNKED_CAPACITY), length + count);
+            body = Arrays.copyOf(body, Math.min(capacity, maxBodySize));
+        }
+        System.arraycopy(data, offset, body, length, count);
+        length += count;
+    }
+    
+    private void fail(Status failure) {
+        status = failure;
+        state = State.DONE;
+    }
+}
@@ -0,0 +1,353 @@
+package swiftfood;
+
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HttpRequestParser parses an HTTP/1.x request line and headers straight out
+ * of a reusable, array-backed ByteBuffer. It only records offsets into the
+ * buffer; method names are matched against constants and header values are
+ * turned into Strings only when a handler asks for one.
+ *
+ * The buffer is read in fill mode: bytes [0, position) are the received data.
+ * A parser is reused for every request on its connection.
+ */
+public class HttpRequestParser {
+    public static final int INCOMPLETE = -1;
+    public static final int MALFORMED = -2;
+    
+    private static final int MAX_HEADERS = 64;
+    static final int MAX_PATH_PARAMS = 8;
+    private static final String[] KNOWN_METHODS = { "GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD", "PATCH" };
+    private static final byte[][] KNOWN_METHOD_BYTES = new byte[KNOWN_METHODS.length][];
+    
+    static {
+        for (int i = 0; i < KNOWN_METHODS.length; i++) {
+            KNOWN_METHOD_BYTES[i] = KNOWN_METHODS[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+    
+    private byte[] data;
+    private int scanFrom;
+    private int headLength;
+    
+    private String method;
+    private int targetStart;
+    private int targetEnd;
+    private int queryStart;
+    private boolean http10;
+    
+    private final int[] nameStart = new int[MAX_HEADERS];
+    private final int[] nameEnd = new int[MAX_HEADERS];
+    private final int[] valueStart = new int[MAX_HEADERS];
+    private final int[] valueEnd = new int[MAX_HEADERS];
+    private int headerCount;
+    
+    // Path parameters captured by Router, as views into the buffer
+    private final PathParam[] pathParams = new PathParam[MAX_PATH_PARAMS];
+    private int pathParamCount;
+    
+    public HttpRequestParser() {
+        for (int i = 0; i < MAX_PATH_PARAMS; i++) {
+            pathParams[i] = new PathParam();
+        }
+    }
+    
+    /**
+     * Parses the request head held in the buffer.
+     *
+     * @return the length of the head including the blank line, {@link #INCOMPLETE}
+     *         if more bytes are needed, or {@link #MALFORMED}
+     */
+    public int parse(ByteBuffer buffer) {
+        data = buffer.array();
+        int end = buffer.position();
+        
+        // Tolerate empty lines ahead of the request line (RFC 7230 3.5); they
+        // must not be taken for the blank line that ends the head
+        int pos = 0;
+        while (pos < end && (data[pos] == '\r' || data[pos] == '\n')) pos++;
+        
+        int headEnd = findHeadEnd(pos, end);
+        if (headEnd < 0) return INCOMPLETE;
+        
+        headerCount = 0;
+        pathParamCount = 0;
+        
+        int methodStart = pos;
+        while (pos < headEnd && data[pos] != ' ') pos++;
+        if (pos == methodStart || pos >= headEnd) return MALFORMED;
+        method = methodName(methodStart, pos);
+        
+        targetStart = ++pos;
+        queryStart = -1;
+        while (pos < headEnd && data[pos] != ' ' && data[pos] != '\r' && data[pos] != '\n') {
+            if (data[pos] == '?' && queryStart < 0) queryStart = pos + 1;
+            pos++;
+        }
+        targetEnd = pos;
+        if (targetEnd == targetStart) return MALFORMED;
+        
+        http10 = false;
+        if (pos < headEnd && data[pos] == ' ') {
+            int versionStart = ++pos;
+            while (pos < headEnd && data[pos] != '\r' && data[pos] != '\n') pos++;
+            http10 = pos - versionStart == 8 && data[pos - 1] == '0' && data[pos - 3] == '1';
+        }
+        pos = skipLineEnd(pos);
+        
+        while (pos < headEnd) {
+            int lineStart = pos;
+            int colon = -1;
+            while (pos < headEnd && data[pos] != '\r' && data[pos] != '\n') {
+                if (data[pos] == ':' && colon < 0) colon = pos;
+                pos++;
+            }
+            int lineEnd = pos;
+            pos = skipLineEnd(pos);
+            
+            if (colon <= lineStart) continue;
+            if (headerCount == MAX_HEADERS) return MALFORMED;
+            
+            int vs = colon + 1;
+            int ve = lineEnd;
+            while (vs < ve && (data[vs] == ' ' || data[vs] == '\t')) vs++;
+            while (ve > vs && (data[ve - 1] == ' ' || data[ve - 1] == '\t')) ve--;
+            int ne = colon;
+            while (ne > lineStart && data[ne - 1] == ' ') ne--;
+            
+            nameStart[headerCount] = lineStart;
+            nameEnd[headerCount] = ne;
+            valueStart[headerCount] = vs;
+            valueEnd[headerCount] = ve;
+            headerCount++;
+        }
+        
+        headLength = headEnd;
+        return headEnd;
+    }
+    
+    /**
+     * Forgets the previous request so the next call to {@link #parse} starts
+     * scanning at the front of the (compacted) buffer.
+     */
+    public void reset() {
+        scanFrom = 0;
+        headLength = 0;
+        headerCount = 0;
+        pathParamCount = 0;
+    }
+    
+    public String method() { return method; }
+    public boolean isHttp10() { return http10; }
+    public int headLength() { return headLength; }
+    public int headerCount() { return headerCount; }
+    
+    /** Request path without the query string. */
+    public String path() {
+        int end = queryStart < 0 ? targetEnd : queryStart - 1;
+        return new String(data, targetStart, end - targetStart, StandardCharsets.ISO_8859_1);
+    }
+    
+    /** Raw query string, or null when the target has none. */
+    public String query() {
+        if (queryStart < 0) return null;
+        return new String(data, queryStart, targetEnd - queryStart, StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * Value of the first query parameter with this name, percent-decoded,
+     * or null when it is absent. A parameter given without '=' has value "".
+     */
+    public String queryParam(String name) {
+        if (queryStart < 0) return null;
+        int pos = queryStart;
+        while (pos <= targetEnd) {
+            int end = pos;
+            while (end < targetEnd && data[end] != '&') end++;
+            int equals = pos;
+            while (equals < end && data[equals] != '=') equals++;
+            if (regionEquals(pos, equals, name, false)) {
+                return equals == end ? "" : decodeQuery(equals + 1, end);
+            }
+            pos = end + 1;
+        }
+        return null;
+    }
+    
+    private String decodeQuery(int start, int end) {
+        byte[] decoded = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == '+') {
+                b = ' ';
+            } else if (b == '%' && i + 2 < end) {
+                int hi = Character.digit(data[i + 1], 16);
+                int lo = Character.digit(data[i + 2], 16);
+                if (hi >= 0 && lo >= 0) {
+                    b = (byte) ((hi << 4) | lo);
+                    i += 2;
+                }
+            }
+            decoded[length++] = b;
+        }
+        return new String(decoded, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    /** Length of the request path, without the query string. */
+    public int pathLength() {
+        return (queryStart < 0 ? targetEnd : queryStart - 1) - targetStart;
+    }
+    
+    /** The buffer holding the request path, which starts at {@link #pathOffset()}. */
+    byte[] pathBuffer() { return data; }
+    int pathOffset() { return targetStart; }
+    
+    /**
+     * A path parameter captured by the matched route, in pattern order. The
+     * view reads straight from the request buffer, so it is only valid while
+     * the request is being handled; call toString() to keep it.
+     */
+    public CharSequence pathParam(int index) {
+        if (index >= pathParamCount) throw new IndexOutOfBoundsException("No path parameter " + index);
+        return pathParams[index];
+    }
+    
+    public int pathParamCount() { return pathParamCount; }
+    
+    /** Records a path parameter at buffer offsets [start, end). */
+    void setPathParam(int index, int start, int end) {
+        pathParams[index].set(start, end);
+        pathParamCount = Math.max(pathParamCount, index + 1);
+    }
+    
+    void clearPathParams() {
+        pathParamCount = 0;
+    }
+    
+    public boolean pathEquals(String expected) {
+        int end = queryStart < 0 ? targetEnd : queryStart - 1;
+        return regionEquals(targetStart, end, expected, false);
+    }
+    
+    /** Value of the first header with this (case-insensitive) name, or null. */
+    public String header(String name) {
+        int index = indexOf(name);
+        if (index < 0) return null;
+        return new String(data, valueStart[index], valueEnd[index] - valueStart[index], StandardCharsets.ISO_8859_1);
+    }
+    
+    public boolean hasHeader(String name) {
+        return indexOf(name) >= 0;
+    }
+    
+    /** True when the header is present and equals the value, ignoring case. */
+    public boolean headerEquals(String name, String value) {
+        int index = indexOf(name);
+        return index >= 0 && regionEquals(valueStart[index], valueEnd[index], value, true);
+    }
+    
+    /**
+     * Content-Length parsed directly from the header bytes: 0 when absent,
+     * -1 when it is not a valid non-negative number.
+     */
+    public long contentLength() {
+        int index = indexOf("Content-Length");
+        if (index < 0) return 0;
+        int start = valueStart[index];
+        int end = valueEnd[index];
+        if (start == end || end - start > 18) return -1;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+    
+    /** HTTP/1.1 defaults to persistent connections, HTTP/1.0 must opt in. */
+    public boolean isKeepAlive() {
+        if (http10) return headerEquals("Connection", "keep-alive");
+        return !headerEquals("Connection", "close");
+    }
+    
+    /** A CharSequence over part of the request buffer, read as ISO-8859-1. */
+    private final class PathParam implements CharSequence {
+        private int start;
+        private int end;
+        
+        void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        public int length() {
+            return end - start;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            return (char) (data[start + index] & 0xff);
+        }
+        
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+        
+        @Override
+        public String toString() {
+            return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+    
+    private int findHeadEnd(int start, int end) {
+        for (int i = Math.max(scanFrom, start); i < end; i++) {
+            if (data[i] != '\n') continue;
+            if (i + 1 < end && data[i + 1] == '\n') return i + 2;
+            if (i + 2 < end && data[i + 1] == '\r' && data[i + 2] == '\n') return i + 3;
+        }
+        // Re-check the last few bytes once the rest of the terminator arrives
+        scanFrom = end - 3;
+        return -1;
+    }
+    
+    private int skipLineEnd(int pos) {
+        if (pos < data.length && data[pos] == '\r') pos++;
+        if (pos < data.length && data[pos] == '\n') pos++;
+        return pos;
+    }
+    
+    private String methodName(int start, int end) {
+        for (int i = 0; i < KNOWN_METHOD_BYTES.length; i++) {
+            byte[] known = KNOWN_METHOD_BYTES[i];
+            if (known.length != end - start) continue;
+            int j = 0;
+            while (j < known.length && known[j] == data[start + j]) j++;
+            if (j == known.length) return KNOWN_METHODS[i];
+        }
+        return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+    
+    private int indexOf(String name) {
+        for (int i = 0; i < headerCount; i++) {
+            if (regionEquals(nameStart[i], nameEnd[i], name, true)) return i;
+        }
+        return -1;
+    }
+    
+    private boolean regionEquals(int start, int end, String expected, boolean ignoreCase) {
+        if (end - start != expected.length()) return false;
+        for (int i = 0; i < expected.length(); i++) {
+            int a = data[start + i];
+            int b = expected.charAt(i);
+            if (a == b) continue;
+            if (!ignoreCase) return false;
+            if ((a | 0x20) != (b | 0x20) || (a | 0x20) < 'a' || (a | 0x20) > 'z') return false;
+        }
+        return true;
+    }
+}
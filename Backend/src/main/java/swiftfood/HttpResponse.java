@@ -0,0 +1,120 @@
+package swiftfood;
+
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * HttpResponse carries what a handler produced: status, content type,
+ * body and any extra headers. The connection engines encode it. The body is
+ * a buffer so that cached and memory-mapped content is written as it is.
+ */
+public class HttpResponse {
+    private static final byte[] EMPTY = new byte[0];
+    
+    private final int status;
+    private final String contentType;
+    private final ByteBuffer body;
+    private final List<String> headers = new ArrayList<>(2);
+    private PlayerStreams.Subscription stream;
+    
+    public HttpResponse(int status, String contentType, byte[] body) {
+        this(status, contentType, ByteBuffer.wrap(body));
+    }
+    
+    public HttpResponse(int status, String contentType, ByteBuffer body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+    
+    public static HttpResponse json(String body) {
+        return new HttpResponse(200, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /** A 200 response holding the writer's current document, copied out once. */
+    public static HttpResponse json(JsonWriter json) {
+        return json(200, json);
+    }
+    
+    public static HttpResponse json(int status, JsonWriter json) {
+        return new HttpResponse(status, "application/json", json.toByteArray());
+    }
+    
+    /**
+     * A 200 response serving a cached payload with its validator, in its
+     * precompressed form when the client accepts one that is available.
+     */
+    public static HttpResponse cached(CachedPayload payload, ResponseCompressor.Encoding encoding) {
+        if (!payload.offers(encoding)) encoding = ResponseCompressor.Encoding.IDENTITY;
+        HttpResponse response = new HttpResponse(200, payload.getContentType(), payload.getBody(encoding))
+                .addHeader("ETag", payload.getETag(encoding));
+        if (encoding != ResponseCompressor.Encoding.IDENTITY) {
+            response.addHeader("Content-Encoding", encoding.token());
+        }
+        if (payload.isCompressed()) {
+            response.addHeader("Vary", "Accept-Encoding");
+        }
+        return response;
+    }
+    
+    /**
+     * A 304 for a payload the client already holds; it carries no body, and
+     * the validator of the representation a 200 would have sent.
+     */
+    public static HttpResponse notModified(CachedPayload payload, ResponseCompressor.Encoding encoding) {
+        if (!payload.offers(encoding)) encoding = ResponseCompressor.Encoding.IDENTITY;
+        HttpResponse response = new HttpResponse(304, null, EMPTY)
+                .addHeader("ETag", payload.getETag(encoding));
+        if (payload.isCompressed()) {
+            response.addHeader("Vary", "Accept-Encoding");
+        }
+        return response;
+    }
+    
+    /**
+     * A server-sent event stream. The body is only its opening; the NIO
+     * engine keeps the connection and writes the subscription's events after it.
+     */
+    public static HttpResponse eventStream(PlayerStreams.Subscription stream, long retryMillis) {
+        HttpResponse response = new HttpResponse(200, "text/event-stream", stream.open(retryMillis))
+                .addHeader("Cache-Control", "no-cache");
+        response.stream = stream;
+        return response;
+    }
+    
+    /** A copy of this response with another body, keeping status, type and headers. */
+    public HttpResponse withBody(byte[] body) {
+        HttpResponse response = new HttpResponse(status, contentType, body);
+        response.headers.addAll(headers);
+        return response;
+    }
+    
+    public HttpResponse addHeader(String name, String value) {
+        headers.add(name);
+        headers.add(value);
+        return this;
+    }
+    
+    // Getters
+    public int getStatus() { return status; }
+    public String getContentType() { return contentType; }
+    public int getBodyLength() { return body.remaining(); }
+    
+    /** The subscription whose events follow the body, or null for an ordinary response. */
+    public PlayerStreams.Subscription getStream() { return stream; }
+    
+    /** A fresh view of the body; writing it out does not consume the response. */
+    public ByteBuffer getBody() { return body.duplicate(); }
+    
+    /** Extra headers as alternating name, value entries. */
+    public List<String> getHeaders() { return headers; }
+    
+    /** Value of the first extra header with this (case-insensitive) name, or null. */
+    public String getHeader(String name) {
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) return headers.get(i + 1);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,146 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * HttpResponseWriter turns an {@link HttpResponse} into bytes on the wire.
+ * Status lines and the headers every response carries are encoded once into
+ * constant byte blocks; a response's head is assembled from them in a
+ * buffer that is reused for every response, and goes out together with the
+ * untouched body in one gathering write.
+ *
+ * A writer serves one connection or one blocking worker at a time.
+ */
+public class HttpResponseWriter {
+    private static final byte[] CRLF = ascii("\r\n");
+    private static final byte[] HEADER_SEPARATOR = ascii(": ");
+    private static final byte[] COMMON_HEADERS = ascii(
+            "Access-Control-Allow-Origin: *\r\n"
+            + "Access-Control-Allow-Methods: GET, POST, PUT, DELETE, OPTIONS\r\n"
+            + "Access-Control-Allow-Headers: Content-Type\r\n");
+    private static final byte[] KEEP_ALIVE = ascii("Connection: keep-alive\r\n");
+    private static final byte[] CLOSE = ascii("Connection: close\r\n");
+    private static final byte[] CONTENT_LENGTH = ascii("Content-Length: ");
+    
+    private static final byte[][] STATUS_LINES = new byte[600][];
+    static {
+        int[] known = { 100, 200, 201, 204, 304, 400, 404, 405, 413, 429, 500, 503 };
+        for (int status : known) {
+            STATUS_LINES[status] = ascii("HTTP/1.1 " + status + " " + reasonPhrase(status) + "\r\n");
+        }
+    }
+    // "Content-Type: ...\r\n" for each content type seen; there are only a handful
+    private static final ConcurrentMap<String, byte[]> CONTENT_TYPE_LINES = new ConcurrentHashMap<>();
+    
+    private ByteBuffer head = ByteBuffer.allocate(512);
+    private final ByteBuffer[] parts = new ByteBuffer[2];
+    
+    /**
+     * Encodes a response as its head and body buffers, ready for one
+     * gathering write. The array and head buffer are reused by the next call.
+     */
+    public ByteBuffer[] encode(HttpResponse response, boolean keepAlive) {
+        ByteBuffer body = response.getBody();
+        int status = response.getStatus();
+        head.clear();
+        put(statusLine(status));
+        if (response.getContentType() != null) {
+            put(CONTENT_TYPE_LINES.computeIfAbsent(response.getContentType(), type -> ascii("Content-Type: " + type + "\r\n")));
+        }
+        put(COMMON_HEADERS);
+        List<String> headers = response.getHeaders();
+        for (int i = 0; i < headers.size(); i += 2) {
+            putAscii(headers.get(i));
+            put(HEADER_SEPARATOR);
+            putAscii(headers.get(i + 1));
+            put(CRLF);
+        }
+        put(keepAlive ? KEEP_ALIVE : CLOSE);
+        // 204 and 304 carry no body and must not announce one; an event stream's body ends when the connection does
+        if (status != 204 && status != 304 && response.getStream() == null) {
+            put(CONTENT_LENGTH);
+            putAscii(Integer.toString(body.remaining()));
+            put(CRLF);
+        }
+        put(CRLF);
+        head.flip();
+        
+        parts[0] = head;
+        parts[1] = body;
+        return parts;
+    }
+    
+    /** Writes a whole response to a blocking channel, returning the bytes written. */
+    public long write(GatheringByteChannel channel, HttpResponse response, boolean keepAlive) throws IOException {
+        return writeFully(channel, encode(response, keepAlive));
+    }
+    
+    static long writeFully(GatheringByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        long written = 0;
+        while (hasRemaining(buffers)) {
+            written += channel.write(buffers);
+        }
+        return written;
+    }
+    
+    static boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) return true;
+        }
+        return false;
+    }
+    
+    private void put(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        head.put(bytes);
+    }
+    
+    // Header names and values are ISO-8859-1 by definition
+    private void putAscii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            head.put((byte) text.charAt(i));
+        }
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (head.remaining() >= extra) return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(head.capacity() * 2, head.position() + extra));
+        head.flip();
+        larger.put(head);
+        head = larger;
+    }
+    
+    private static byte[] statusLine(int status) {
+        byte[] line = status >= 0 && status < STATUS_LINES.length ? STATUS_LINES[status] : null;
+        return line != null ? line : ascii("HTTP/1.1 " + status + " " + reasonPhrase(status) + "\r\n");
+    }
+    
+    static String reasonPhrase(int status) {
+        switch (status) {
+            case 100: return "Continue";
+            case 200: return "OK";
+            case 201: return "Created";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 413: return "Payload Too Large";
+            case 429: return "Too Many Requests";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            default: return "Unknown";
+        }
+    }
+    
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,319 @@
+package swiftfood;
+
+/**
+ * JsonReader is a pull parser for request bodies. It walks the text in place
+ * without building a tree: numbers are parsed straight from the characters,
+ * member names are matched against a caller's table without allocating, and
+ * only string values the caller asks for become Strings.
+ *
+ * Malformed input raises an IllegalArgumentException naming the offset.
+ */
+public class JsonReader {
+    private static final int MAX_DEPTH = 64;
+    private static final String[] NO_NAMES = new String[0];
+    private static final ThreadLocal<JsonReader> LOCAL = ThreadLocal.withInitial(JsonReader::new);
+    
+    /** The kind of value that comes next. */
+    public enum Token { OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL }
+    
+    private CharSequence in;
+    private int pos;
+    private int depth;
+    // first[depth] is true until the container at that depth has had a member
+    private final boolean[] first = new boolean[MAX_DEPTH];
+    
+    /** The calling thread's reader, positioned at the start of the text. */
+    public static JsonReader local(CharSequence text) {
+        return LOCAL.get().reset(text);
+    }
+    
+    public JsonReader reset(CharSequence text) {
+        this.in = text;
+        this.pos = 0;
+        this.depth = 0;
+        return this;
+    }
+    
+    public Token peek() {
+        skipWhitespace();
+        if (pos >= in.length()) throw error("Unexpected end of input");
+        char c = in.charAt(pos);
+        switch (c) {
+            case '{': return Token.OBJECT;
+            case '[': return Token.ARRAY;
+            case '"': return Token.STRING;
+            case 't': case 'f': return Token.BOOLEAN;
+            case 'n': return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return Token.NUMBER;
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+    
+    public void beginObject() {
+        expect('{');
+        push();
+    }
+    
+    public void endObject() {
+        expect('}');
+        depth--;
+    }
+    
+    public void beginArray() {
+        expect('[');
+        push();
+    }
+    
+    public void endArray() {
+        expect(']');
+        depth--;
+    }
+    
+    /**
+     * Whether the current object or array has another member, consuming the
+     * separating comma if there is one.
+     */
+    public boolean hasNext() {
+        skipWhitespace();
+        if (pos >= in.length()) throw error("Unexpected end of input");
+        char c = in.charAt(pos);
+        if (c == '}' || c == ']') return false;
+        if (first[depth]) {
+            first[depth] = false;
+        } else {
+            expect(',');
+        }
+        return true;
+    }
+    
+    /**
+     * Reads a member name and its colon.
+     *
+     * @return the index of the name in {@code names}, or -1 if it is not there
+     */
+    public int nextName(String[] names) {
+        skipWhitespace();
+        if (pos >= in.length() || in.charAt(pos) != '"') throw error("Expected a member name");
+        int start = pos + 1;
+        int end = start;
+        while (end < in.length() && in.charAt(end) != '"' && in.charAt(end) != '\\') end++;
+        
+        int match = -1;
+        if (end < in.length() && in.charAt(end) == '"') {
+            // Common case: no escapes, so compare in place
+            for (int i = 0; i < names.length && match < 0; i++) {
+                if (regionEquals(names[i], start, end)) match = i;
+            }
+            pos = end + 1;
+        } else {
+            String name = nextString();
+            for (int i = 0; i < names.length && match < 0; i++) {
+                if (names[i].equals(name)) match = i;
+            }
+        }
+        expect(':');
+        return match;
+    }
+    
+    /** Reads a member name and its colon, for objects whose keys are data rather than fields. */
+    public String nextName() {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+    
+    public String nextString() {
+        skipWhitespace();
+        if (pos >= in.length() || in.charAt(pos) != '"') throw error("Expected a string");
+        int start = ++pos;
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c == '"') {
+                return in.subSequence(start, pos++).toString();
+            }
+            if (c == '\\') break;
+            if (c < 0x20) throw error("Control character in string");
+            pos++;
+        }
+        
+        // Escapes present: decode from here on
+        StringBuilder value = new StringBuilder(pos - start + 16).append(in, start, pos);
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (c == '"') return value.toString();
+            if (c < 0x20) throw error("Control character in string");
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (pos >= in.length()) break;
+            char escape = in.charAt(pos++);
+            switch (escape) {
+                case '"': case '\\': case '/': value.append(escape); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > in.length()) throw error("Truncated unicode escape");
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(in.charAt(pos++), 16);
+                        if (digit < 0) throw error("Invalid unicode escape");
+                        code = (code << 4) | digit;
+                    }
+                    value.append((char) code);
+                    break;
+                default:
+                    throw error("Invalid escape '\\" + escape + "'");
+            }
+        }
+        throw error("Unterminated string");
+    }
+    
+    public int nextInt() {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) throw error("Number out of range");
+        return (int) value;
+    }
+    
+    /** Reads an integer; fractions and exponents are rejected rather than truncated. */
+    public long nextLong() {
+        skipWhitespace();
+        boolean negative = pos < in.length() && in.charAt(pos) == '-';
+        if (negative) pos++;
+        int start = pos;
+        // Accumulated as a negative number, which has room for Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        while (pos < in.length()) {
+            int digit = in.charAt(pos) - '0';
+            if (digit < 0 || digit > 9) break;
+            if (value < limit / 10 || value * 10 < limit + digit) throw error("Number out of range");
+            value = value * 10 - digit;
+            pos++;
+        }
+        if (pos == start) throw error("Expected a number");
+        if (in.charAt(start) == '0' && pos - start > 1) throw error("Leading zero in number");
+        if (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E') throw error("Expected an integer");
+        }
+        return negative ? value : -value;
+    }
+    
+    public boolean nextBoolean() {
+        skipWhitespace();
+        if (matchLiteral("true")) return true;
+        if (matchLiteral("false")) return false;
+        throw error("Expected true or false");
+    }
+    
+    /** Consumes a null if one comes next. */
+    public boolean nextNull() {
+        skipWhitespace();
+        return matchLiteral("null");
+    }
+    
+    /** Skips the next value, including everything nested inside it. */
+    public void skipValue() {
+        switch (peek()) {
+            case OBJECT:
+                beginObject();
+                while (hasNext()) {
+                    nextName(NO_NAMES);
+                    skipValue();
+                }
+                endObject();
+                break;
+            case ARRAY:
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case STRING:
+                skipString();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                if (!nextNull()) throw error("Expected null");
+                break;
+            case NUMBER:
+                skipNumber();
+                break;
+        }
+    }
+    
+    /** Checks that nothing but whitespace follows the document. */
+    public void endDocument() {
+        skipWhitespace();
+        if (pos < in.length()) throw error("Unexpected trailing content");
+    }
+    
+    private void skipString() {
+        pos++;
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (c == '"') return;
+            if (c == '\\') pos++;
+            else if (c < 0x20) throw error("Control character in string");
+        }
+        throw error("Unterminated string");
+    }
+    
+    private void skipNumber() {
+        int start = pos;
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (pos == start) throw error("Expected a number");
+    }
+    
+    private boolean matchLiteral(String literal) {
+        if (!regionEquals(literal, pos, Math.min(in.length(), pos + literal.length()))) return false;
+        pos += literal.length();
+        return true;
+    }
+    
+    private boolean regionEquals(String s, int start, int end) {
+        if (end - start != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (in.charAt(start + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+    
+    private void expect(char c) {
+        skipWhitespace();
+        if (pos >= in.length() || in.charAt(pos) != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+    
+    private void push() {
+        if (++depth == MAX_DEPTH) throw error("JSON nested deeper than " + MAX_DEPTH);
+        first[depth] = true;
+    }
+    
+    private void skipWhitespace() {
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+    
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Malformed JSON at offset " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,241 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * JsonWriter streams JSON straight into a growable UTF-8 byte buffer.
+ * Strings are escaped and encoded character by character as they are written,
+ * so serializing an object builds no intermediate Strings. Commas between
+ * members and elements are inserted automatically.
+ *
+ * A writer is reused: {@link #local()} hands each thread its own, reset.
+ */
+public class JsonWriter {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+    private static final int MAX_DEPTH = 64;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    
+    private static final ThreadLocal<JsonWriter> LOCAL = ThreadLocal.withInitial(JsonWriter::new);
+    
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+    // needsComma[depth] is true once the container at that depth has a member
+    private final boolean[] needsComma = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+    
+    /** The calling thread's writer, emptied and ready for use. */
+    public static JsonWriter local() {
+        JsonWriter writer = LOCAL.get();
+        writer.reset();
+        return writer;
+    }
+    
+    public JsonWriter reset() {
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            // Do not pin one unusually large document's buffer for the thread's lifetime
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        size = 0;
+        depth = 0;
+        afterName = false;
+        needsComma[0] = false;
+        return this;
+    }
+    
+    public JsonWriter beginObject() {
+        beforeValue();
+        write('{');
+        push();
+        return this;
+    }
+    
+    public JsonWriter endObject() {
+        depth--;
+        write('}');
+        return this;
+    }
+    
+    public JsonWriter beginArray() {
+        beforeValue();
+        write('[');
+        push();
+        return this;
+    }
+    
+    public JsonWriter endArray() {
+        depth--;
+        write(']');
+        return this;
+    }
+    
+    public JsonWriter name(String name) {
+        if (needsComma[depth]) write(',');
+        needsComma[depth] = true;
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+    
+    public JsonWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            write(NULL);
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+    
+    public JsonWriter value(long value) {
+        beforeValue();
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return this;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        ensureCapacity(19);
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+    
+    /** Writes already-encoded JSON (for example a cached payload) as a value. */
+    public JsonWriter rawValue(byte[] json) {
+        beforeValue();
+        write(json);
+        return this;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /** The internal buffer; only the first {@link #size()} bytes are valid. */
+    public byte[] buffer() {
+        return buffer;
+    }
+    
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+    
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+    
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+    
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (needsComma[depth]) write(',');
+            needsComma[depth] = true;
+        }
+    }
+    
+    private void push() {
+        if (++depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested deeper than " + MAX_DEPTH);
+        }
+        needsComma[depth] = false;
+    }
+    
+    private void writeString(String value) {
+        // Worst case is six bytes per char, for an escaped control character
+        int length = value.length();
+        ensureCapacity(length * 6 + 2);
+        byte[] out = buffer;
+        int pos = size;
+        out[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    out[pos++] = (byte) c;
+                    continue;
+                }
+                out[pos++] = '\\';
+                switch (c) {
+                    case '"': out[pos++] = '"'; break;
+                    case '\\': out[pos++] = '\\'; break;
+                    case '\n': out[pos++] = 'n'; break;
+                    case '\r': out[pos++] = 'r'; break;
+                    case '\t': out[pos++] = 't'; break;
+                    case '\b': out[pos++] = 'b'; break;
+                    case '\f': out[pos++] = 'f'; break;
+                    default:
+                        out[pos++] = 'u';
+                        out[pos++] = '0';
+                        out[pos++] = '0';
+                        out[pos++] = HEX[c >> 4];
+                        out[pos++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: emit U+FFFD, the Unicode replacement character
+                out[pos++] = (byte) 0xEF;
+                out[pos++] = (byte) 0xBF;
+                out[pos++] = (byte) 0xBD;
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[pos++] = '"';
+        size = pos;
+    }
+    
+    private void write(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+    
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package swiftfood;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.*;
+
+/**
+ * LatencyHistogram counts durations in power-of-two microsecond buckets, so
+ * recording is one bit scan and one striped addition, with no locks and no
+ * allocation. Bucket i holds durations below 2^i microseconds that did not
+ * fit the bucket before it; the last bucket also takes everything longer.
+ */
+public class LatencyHistogram {
+    // Bounds of 2^0 to 2^24 microseconds (the last about 16.8 seconds), then +Inf
+    static final int BUCKETS = 26;
+    
+    // Bucket upper bounds in seconds, as Prometheus "le" label values
+    private static final String[] BOUNDS = new String[BUCKETS];
+    static {
+        for (int i = 0; i < BUCKETS; i++) {
+            BOUNDS[i] = BigDecimal.valueOf(1L << i).movePointLeft(6).toPlainString();
+        }
+    }
+    
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+    
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+    
+    public void record(long nanos) {
+        long micros = Math.max(nanos, 0) / 1000;
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        counts[bucket].increment();
+        sumNanos.add(nanos);
+    }
+    
+    /** Durations recorded in a bucket; bucket i is bounded by 2^i microseconds. */
+    public long count(int bucket) {
+        return counts[bucket].sum();
+    }
+    
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+    
+    /**
+     * Writes the Prometheus histogram samples: cumulative buckets, then sum
+     * and count. Labels, if any, are given as {@code name="value",...}.
+     */
+    public void writePrometheus(StringBuilder out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            cumulative += counts[i].sum();
+            out.append(name).append("_bucket").append(prefix).append("le=\"").append(BOUNDS[i]).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        cumulative += counts[BUCKETS - 1].sum();
+        out.append(name).append("_bucket").append(prefix).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.append(name).append("_sum").append(suffix).append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count").append(suffix).append(cumulative).append('\n');
+    }
+}
@@ -0,0 +1,319 @@
+package swiftfood;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Leaderboard keeps players ranked by total XP, level and coins as they change.
+ *
+ * Each ranking is a concurrent skip list ordered by score (highest first, ties
+ * by player key) plus a Fenwick tree of player counts per score bucket. Top-N
+ * walks the head of the skip list; a player's rank, 1 + the number of players
+ * with a strictly higher score, is a Fenwick prefix sum. Scores below 131072
+ * get a bucket each; above that buckets are 1/1024 of the score wide, so the
+ * rank query only scans the few entries that share the player's bucket.
+ *
+ * Players are re-ranked from the change listener on {@link PlayerData}. The
+ * skip list and counters are lock-free; only updates to the same player are
+ * serialized, by a striped lock, so a player's entries track its latest state.
+ * Entries hold keys and scores rather than players, so players evicted from
+ * memory stay ranked: they are detached while cold and attached again on load.
+ */
+public class Leaderboard implements PlayerData.ChangeListener {
+    public static final int MAX_LIMIT = 100;
+    
+    /** What players can be ranked by. */
+    public enum Metric {
+        XP("xp", PlayerData::getTotalXp),
+        LEVEL("level", PlayerData::getLevel),
+        COINS("coins", PlayerData::getCoins);
+        
+        private final String wireName;
+        private final ToLongFunction<PlayerData> score;
+        
+        Metric(String wireName, ToLongFunction<PlayerData> score) {
+            this.wireName = wireName;
+            this.score = score;
+        }
+        
+        public String getWireName() { return wireName; }
+        
+        /** The metric with this query-string name, or null. */
+        public static Metric fromWireName(String name) {
+            for (Metric metric : values()) {
+                if (metric.wireName.equals(name)) return metric;
+            }
+            return null;
+        }
+    }
+    
+    private static final Metric[] METRICS = Metric.values();
+    private static final int LOCK_STRIPES = 256;
+    
+    private final Ranking[] rankings = new Ranking[METRICS.length];
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    
+    public Leaderboard() {
+        for (int i = 0; i < rankings.length; i++) {
+            rankings[i] = new Ranking();
+        }
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+    
+    /** Starts ranking a new player and keeps it ranked as it changes. */
+    public void add(PlayerData player) {
+        // Listen first: a change racing with this either waits for the lock or
+        // happens before the scores below are read
+        player.setChangeListener(this);
+        synchronized (lockFor(player)) {
+            if (player.rankedScores != null) return;
+            long[] scores = scoresOf(player);
+            for (int i = 0; i < METRICS.length; i++) {
+                rankings[i].insert(scores[i], player.getKey());
+            }
+            player.rankedScores = scores;
+        }
+    }
+    
+    public void remove(PlayerData player) {
+        player.setChangeListener(null);
+        synchronized (lockFor(player)) {
+            long[] scores = player.rankedScores;
+            if (scores == null) return;
+            for (int i = 0; i < METRICS.length; i++) {
+                rankings[i].delete(scores[i], player.getKey());
+            }
+            player.rankedScores = null;
+        }
+    }
+    
+    /**
+     * Stops following a player that is leaving memory. Its entries stay, and
+     * they remain correct because a cold player cannot change.
+     */
+    public void detach(PlayerData player) {
+        player.setChangeListener(null);
+        synchronized (lockFor(player)) {
+            player.rankedScores = null;
+        }
+    }
+    
+    /** Follows a ranked player again after it is loaded back into memory. */
+    public void attach(PlayerData player) {
+        player.setChangeListener(this);
+        synchronized (lockFor(player)) {
+            player.rankedScores = scoresOf(player);
+        }
+    }
+    
+    /**
+     * Bulk-loads rankings, such as everything recovered at startup, before
+     * anything else can change them. Entries go into each skip list in sorted
+     * order, which is several times faster than inserting them one by one at
+     * random positions. Players still in memory are attached afterwards.
+     */
+    public final class Loader {
+        private Entry[][] entries = new Entry[METRICS.length][1024];
+        private int count;
+        
+        private Loader() {
+        }
+        
+        public void add(PlayerData player) {
+            if (count == entries[0].length) {
+                for (int i = 0; i < METRICS.length; i++) {
+                    entries[i] = Arrays.copyOf(entries[i], count * 2);
+                }
+            }
+            for (int i = 0; i < METRICS.length; i++) {
+                entries[i][count] = new Entry(METRICS[i].score.applyAsLong(player), player.getKey());
+            }
+            count++;
+        }
+        
+        public void finish() {
+            for (int i = 0; i < METRICS.length; i++) {
+                Arrays.sort(entries[i], 0, count, ORDER);
+                for (int j = 0; j < count; j++) {
+                    rankings[i].entries.add(entries[i][j]);
+                    rankings[i].counts.add(BucketCounts.bucketOf(entries[i][j].score), 1);
+                }
+            }
+            entries = null;
+        }
+    }
+    
+    public Loader loader() {
+        return new Loader();
+    }
+    
+    /**
+     * Re-ranks a player from its current state. Listener calls for one player
+     * can arrive out of order, so this always reads the latest state rather
+     * than trusting the change that triggered it.
+     */
+    @Override
+    public void playerChanged(PlayerData player) {
+        synchronized (lockFor(player)) {
+            long[] scores = player.rankedScores;
+            if (scores == null) return; // removed meanwhile
+            for (int i = 0; i < METRICS.length; i++) {
+                long score = METRICS[i].score.applyAsLong(player);
+                if (score != scores[i]) {
+                    rankings[i].delete(scores[i], player.getKey());
+                    rankings[i].insert(score, player.getKey());
+                    scores[i] = score;
+                }
+            }
+        }
+    }
+    
+    /** The highest ranked entries, best first. */
+    public List<Entry> top(Metric metric, int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(limit, MAX_LIMIT));
+        next:
+        for (Entry entry : rankings[metric.ordinal()].entries) {
+            if (top.size() >= limit) break;
+            // A player being re-ranked can be passed at its old and its new position
+            for (Entry seen : top) {
+                if (seen.key == entry.key) continue next;
+            }
+            top.add(entry);
+        }
+        return top;
+    }
+    
+    /**
+     * 1 + the number of players with a strictly higher score (players with
+     * equal scores share a rank), or 0 if the player is not ranked.
+     */
+    public long rank(Metric metric, PlayerData player) {
+        long[] scores = player.rankedScores;
+        if (scores == null) return 0;
+        return rankings[metric.ordinal()].countAbove(scores[metric.ordinal()]) + 1;
+    }
+    
+    /** The player's current score for the metric. */
+    public long score(Metric metric, PlayerData player) {
+        return metric.score.applyAsLong(player);
+    }
+    
+    private static long[] scoresOf(PlayerData player) {
+        long[] scores = new long[METRICS.length];
+        for (int i = 0; i < METRICS.length; i++) {
+            scores[i] = METRICS[i].score.applyAsLong(player);
+        }
+        return scores;
+    }
+    
+    public int size() {
+        return (int) rankings[0].counts.total();
+    }
+    
+    private Object lockFor(PlayerData player) {
+        long key = player.getKey();
+        return locks[(int) (key ^ (key >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+    
+    /** A player's position in one ranking. */
+    public static final class Entry {
+        final long score;
+        final long key;
+        
+        Entry(long score, long key) {
+            this.score = score;
+            this.key = key;
+        }
+        
+        public long getScore() { return score; }
+        public long getKey() { return key; }
+    }
+    
+    // Highest score first; ties broken by key so every player has one position
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int byScore = Long.compare(b.score, a.score);
+        return byScore != 0 ? byScore : Long.compare(a.key, b.key);
+    };
+    
+    /** One ordering of all ranked players. */
+    private static final class Ranking {
+        final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+        final BucketCounts counts = new BucketCounts();
+        
+        void insert(long score, long key) {
+            entries.add(new Entry(score, key));
+            counts.add(BucketCounts.bucketOf(score), 1);
+        }
+        
+        void delete(long score, long key) {
+            if (entries.remove(new Entry(score, key))) {
+                counts.add(BucketCounts.bucketOf(score), -1);
+            }
+        }
+        
+        long countAbove(long score) {
+            int bucket = BucketCounts.bucketOf(score);
+            long above = counts.total() - counts.prefix(bucket);
+            long bucketMax = BucketCounts.maxOf(bucket);
+            if (bucketMax > score) {
+                // Scores are exact below the dense range; above it, count the
+                // bucket-mates that outscore this one
+                above += entries.subSet(new Entry(bucketMax, Long.MIN_VALUE), true,
+                        new Entry(score, Long.MIN_VALUE), false).size();
+            }
+            return above;
+        }
+    }
+    
+    /**
+     * Player counts per score bucket in a Fenwick tree. Updates are atomic
+     * additions, so concurrent writers never lock and never lose a count.
+     */
+    static final class BucketCounts {
+        static final int DENSE_BITS = 17;
+        static final int SUB_BITS = 10;
+        static final int BUCKETS = (1 << DENSE_BITS) + (63 - DENSE_BITS) * (1 << SUB_BITS);
+        
+        private final AtomicLongArray tree = new AtomicLongArray(BUCKETS + 1);
+        
+        static int bucketOf(long score) {
+            if (score < (1 << DENSE_BITS)) return (int) Math.max(score, 0);
+            int exponent = 63 - Long.numberOfLeadingZeros(score);
+            int sub = (int) (score >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return (1 << DENSE_BITS) + ((exponent - DENSE_BITS) << SUB_BITS) + sub;
+        }
+        
+        /** Highest score that falls in the bucket. */
+        static long maxOf(int bucket) {
+            if (bucket < (1 << DENSE_BITS)) return bucket;
+            int offset = bucket - (1 << DENSE_BITS);
+            int exponent = (offset >>> SUB_BITS) + DENSE_BITS;
+            long sub = offset & ((1 << SUB_BITS) - 1);
+            long low = (1L << exponent) | (sub << (exponent - SUB_BITS));
+            return low + (1L << (exponent - SUB_BITS)) - 1;
+        }
+        
+        void add(int bucket, long delta) {
+            for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+                tree.getAndAdd(i, delta);
+            }
+        }
+        
+        /** Players in buckets 0..bucket inclusive. */
+        long prefix(int bucket) {
+            long sum = 0;
+            for (int i = bucket + 1; i > 0; i -= i & -i) {
+                sum += tree.get(i);
+            }
+            return sum;
+        }
+        
+        long total() {
+            return prefix(BUCKETS - 1);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package swiftfood;
+
+import java.util.*;
+
+/**
+ * LevelCatalog is one version of the level catalog. It never changes once
+ * built: levels sit in an array indexed by levelId, they are listed in
+ * levelId order, and the encoded /api/levels payload is built along with
+ * them. Readers take whichever version is current and need no locks; a new
+ * version replaces the old one whole.
+ *
+ * The file format is the /api/levels document without the per-player fields:
+ * {"levels":[{"levelId":1,"title":...,"icon":...,"requiredLevel":1,
+ * "tasks":[{"title":...,"description":...,"icon":...,"xpReward":20}]}]}
+ */
+public final class LevelCatalog {
+    // Level ids index an array, so they are kept small
+    static final int MAX_LEVEL_ID = 1024;
+    
+    private static final String[] CATALOG_FIELDS = { "levels" };
+    private static final String[] LEVEL_FIELDS = { "levelId", "title", "icon", "requiredLevel", "tasks" };
+    private static final String[] TASK_FIELDS = { "title", "description", "icon", "xpReward" };
+    
+    private final LevelData[] byId;
+    private final List<LevelData> levels;
+    private final CachedPayload payload;
+    
+    /**
+     * @throws IllegalArgumentException if a level id is out of range or used twice
+     */
+    public LevelCatalog(Collection<LevelData> levels, int compressMinSize) {
+        LevelData[] sorted = levels.toArray(new LevelData[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(LevelData::getLevelId));
+        int maxId = sorted.length == 0 ? 0 : sorted[sorted.length - 1].getLevelId();
+        if (sorted.length > 0 && (sorted[0].getLevelId() < 1 || maxId > MAX_LEVEL_ID)) {
+            throw new IllegalArgumentException("Level ids must be between 1 and " + MAX_LEVEL_ID);
+        }
+        this.byId = new LevelData[maxId + 1];
+        for (LevelData level : sorted) {
+            if (byId[level.getLevelId()] != null) {
+                throw new IllegalArgumentException("Duplicate level id " + level.getLevelId());
+            }
+            byId[level.getLevelId()] = level;
+        }
+        this.levels = List.of(sorted);
+        
+        JsonWriter json = JsonWriter.local();
+        json.beginObject().name("levels").beginArray();
+        for (LevelData level : sorted) {
+            level.writeJson(json);
+        }
+        json.endArray().endObject();
+        this.payload = new CachedPayload(json.toByteArray(), "application/json", compressMinSize);
+    }
+    
+    /** The level with this id, or null if there is none. */
+    public LevelData get(int levelId) {
+        return levelId >= 0 && levelId < byId.length ? byId[levelId] : null;
+    }
+    
+    /** Every level, in levelId order. */
+    public List<LevelData> getLevels() { return levels; }
+    public int size() { return levels.size(); }
+    
+    /** The encoded /api/levels response body, with its compressed forms and validators. */
+    public CachedPayload getPayload() { return payload; }
+    
+    /**
+     * Parses and validates a whole catalog file.
+     *
+     * @throws IllegalArgumentException naming the first problem found
+     */
+    public static LevelCatalog parse(CharSequence text, int compressMinSize) {
+        List<LevelData> levels = new ArrayList<>();
+        JsonReader json = JsonReader.local(text);
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName(CATALOG_FIELDS) != 0) throw new IllegalArgumentException("Unknown catalog field");
+            json.beginArray();
+            while (json.hasNext()) {
+                levels.add(parseLevel(json));
+            }
+            json.endArray();
+        }
+        json.endObject();
+        json.endDocument();
+        if (levels.isEmpty()) throw new IllegalArgumentException("The catalog has no levels");
+        return new LevelCatalog(levels, compressMinSize);
+    }
+    
+    private static LevelData parseLevel(JsonReader json) {
+        int levelId = -1;
+        int requiredLevel = -1;
+        String title = null;
+        String icon = null;
+        List<Task> tasks = new ArrayList<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName(LEVEL_FIELDS)) {
+                case 0: levelId = json.nextInt(); break;
+                case 1: title = json.nextString(); break;
+                case 2: icon = json.nextString(); break;
+                case 3: requiredLevel = json.nextInt(); break;
+                case 4:
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        tasks.add(parseTask(json, levelId));
+                    }
+                    json.endArray();
+                    break;
+                default: throw new IllegalArgumentException("Unknown level field");
+            }
+        }
+        json.endObject();
+        
+        if (levelId < 1) throw new IllegalArgumentException("Every level needs a positive levelId");
+        String where = "Level " + levelId + ": ";
+        if (title == null || icon == null) throw new IllegalArgumentException(where + "title and icon are required");
+        if (tasks.isEmpty()) throw new IllegalArgumentException(where + "at least one task is required");
+        return new LevelData(levelId, title, icon, requiredLevel < 0 ? levelId : requiredLevel, tasks);
+    }
+    
+    private static Task parseTask(JsonReader json, int levelId) {
+        String title = null;
+        String description = "";
+        String icon = null;
+        int xpReward = -1;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName(TASK_FIELDS)) {
+                case 0: title = json.nextString(); break;
+                case 1: description = json.nextString(); break;
+                case 2: icon = json.nextString(); break;
+                case 3: xpReward = json.nextInt(); break;
+                default: throw new IllegalArgumentException("Unknown task field");
+            }
+        }
+        json.endObject();
+        
+        if (title == null || xpReward < 0) {
+            throw new IllegalArgumentException("Level " + levelId + ": every task needs a title and a non-negative xpReward");
+        }
+        return icon == null ? new Task(title, description, xpReward) : new Task(title, description, icon, xpReward);
+    }
+}
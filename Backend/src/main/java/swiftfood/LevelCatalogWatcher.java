@@ -0,0 +1,117 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * LevelCatalogWatcher keeps the current {@link LevelCatalog} and reloads it
+ * when its file changes, watching the file's directory with a WatchService.
+ * A changed file is parsed and validated in full before the new version is
+ * published with one volatile write, so requests never see a partial
+ * catalog, and a broken or half-written file leaves the previous version
+ * serving. Without the file, the catalog bundled with the server is used
+ * until the file appears.
+ */
+public class LevelCatalogWatcher implements Closeable {
+    private static final String BUNDLED_CATALOG = "/levels.json";
+    // Editors save in several steps; wait for them to finish before reading
+    private static final long SETTLE_MILLIS = 200;
+    
+    private final Path file;
+    private final int compressMinSize;
+    private volatile LevelCatalog current;
+    private WatchService watchService;
+    
+    /**
+     * Loads the catalog from the file, or from the bundled copy when the file
+     * does not exist.
+     *
+     * @throws IOException if neither can be read
+     * @throws IllegalArgumentException if the catalog that was read is invalid
+     */
+    public LevelCatalogWatcher(Path file, int compressMinSize) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        this.compressMinSize = compressMinSize;
+        if (Files.exists(this.file)) {
+            current = LevelCatalog.parse(Files.readString(this.file, StandardCharsets.UTF_8), compressMinSize);
+        } else {
+            current = LevelCatalog.parse(readBundled(), compressMinSize);
+        }
+    }
+    
+    /** The catalog version to use for a whole request. */
+    public LevelCatalog current() {
+        return current;
+    }
+    
+    /** Starts watching the file for changes on a daemon thread. */
+    public void start() {
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("Level catalog " + file + " will not be reloaded: " + e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(this::watch, "swiftfood-levels");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Reads the file again and publishes it if it is valid.
+     *
+     * @return whether a new version was published
+     */
+    public boolean reload() {
+        if (!Files.exists(file)) return false;
+        try {
+            LevelCatalog catalog = LevelCatalog.parse(Files.readString(file, StandardCharsets.UTF_8), compressMinSize);
+            current = catalog;
+            System.out.println("Reloaded " + catalog.size() + " levels from " + file);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Level catalog " + file + " not reloaded, keeping the previous version: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (!changed) continue;
+                
+                // Fold the rest of the save into one reload
+                Thread.sleep(SETTLE_MILLIS);
+                while ((key = watchService.poll()) != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed: stop watching
+        }
+    }
+    
+    private static String readBundled() throws IOException {
+        try (InputStream in = LevelCatalogWatcher.class.getResourceAsStream(BUNDLED_CATALOG)) {
+            if (in == null) throw new FileNotFoundException("Bundled level catalog " + BUNDLED_CATALOG + " is missing");
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) watchService.close();
+    }
+}
@@ -0,0 +1,81 @@
+package swiftfood;
+
+import java.util.*;
+
+/**
+ * LevelData class represents a level in the SwiftFood game.
+ * Levels belong to the shared, read-only level catalog: every field is fixed
+ * when the level is built, so any number of request threads can read one
+ * without locks. A player's progress is kept in PlayerData.
+ */
+public final class LevelData {
+    private final int levelId;
+    private final String title;
+    private final String icon;
+    private final List<Task> tasks;
+    private final int requiredLevel;
+    private final int xpReward;
+    
+    public LevelData(int levelId, String title, String icon, List<Task> tasks) {
+        this(levelId, title, icon, levelId, tasks);
+    }
+    
+    public LevelData(int levelId, String title, String icon, int requiredLevel, List<Task> tasks) {
+        this.levelId = levelId;
+        this.title = title;
+        this.icon = icon;
+        this.requiredLevel = requiredLevel;
+        this.tasks = List.copyOf(tasks);
+        
+        // XP for completing the whole level: the sum of its tasks' rewards
+        int total = 0;
+        for (Task task : this.tasks) {
+            total += task.getXpReward();
+        }
+        this.xpReward = total;
+    }
+    
+    // Getters
+    public int getLevelId() { return levelId; }
+    public String getTitle() { return title; }
+    public String getIcon() { return icon; }
+    public List<Task> getTasks() { return tasks; }
+    public int getRequiredLevel() { return requiredLevel; }
+    public int getXpReward() { return xpReward; }
+    
+    /** Whether a new player can play this level; later levels open as the player levels up. */
+    public boolean isUnlocked() { return requiredLevel <= 1; }
+    
+    public String toJson() {
+        return writeJson(JsonWriter.local()).toString();
+    }
+    
+    public JsonWriter writeJson(JsonWriter json) {
+        json.beginObject();
+        json.name("levelId").value(levelId);
+        json.name("title").value(title);
+        json.name("icon").value(icon);
+        json.name("unlocked").value(isUnlocked());
+        json.name("requiredLevel").value(requiredLevel);
+        
+        // Add tasks
+        json.name("tasks").beginArray();
+        for (Task task : tasks) {
+            task.writeJson(json);
+        }
+        json.endArray();
+        
+        return json.endObject();
+    }
+    
+    @Override
+    public String toString() {
+        return "LevelData{" +
+                "levelId=" + levelId +
+                ", title='" + title + '\'' +
+                ", icon='" + icon + '\'' +
+                ", tasks=" + tasks +
+                ", requiredLevel=" + requiredLevel +
+                '}';
+    }
+}
@@ -0,0 +1,435 @@
+package swiftfood;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * NioConnectionEngine serves SwiftFoodServer over non-blocking sockets.
+ * One selector thread accepts, reads and writes every connection; complete
+ * requests are handed to the worker pool. Connections are kept alive and
+ * pipelined requests are answered strictly in order, one at a time.
+ *
+ * A connection answered with an event stream stays open and holds no thread
+ * or read buffer: changing threads queue it in {@code streamsReady}, and the
+ * selector writes its next event whenever its previous one has gone out.
+ */
+public class NioConnectionEngine {
+    private static final int READ_BUFFER_SIZE = 8192;
+    // Request heads and any pipelined bytes must fit; bodies are streamed out of it
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_TIMEOUT_MS = 30_000;
+    private static final long SELECT_TIMEOUT_MS = 1_000;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000;
+    
+    private final SwiftFoodServer server;
+    private final int port;
+    private final ExecutorService workers;
+    private final ServerMetrics metrics;
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> streamsReady = new ConcurrentLinkedQueue<>();
+    // Streams only watch for their client hanging up, so they all read into this (selector thread only)
+    private final ByteBuffer streamInput = ByteBuffer.allocate(256);
+    // Read buffers of closed connections, reused by new ones (selector thread only)
+    private final Deque<ByteBuffer> bufferPool = new ArrayDeque<>();
+    
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running = false;
+    
+    public NioConnectionEngine(SwiftFoodServer server, int port, ExecutorService workers, ServerMetrics metrics) {
+        this.server = server;
+        this.port = port;
+        this.workers = workers;
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Runs the selector loop on the calling thread until {@link #stop()} is called.
+     */
+    public void run() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        
+        long lastSweep = System.currentTimeMillis();
+        while (running) {
+            selector.select(SELECT_TIMEOUT_MS);
+            
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) continue;
+                
+                try {
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) connection.onReadable();
+                        if (key.isValid() && key.isWritable()) connection.onWritable();
+                    }
+                } catch (IOException | CancelledKeyException e) {
+                    closeAttached(key);
+                } catch (RuntimeException e) {
+                    // A bug met by one connection must not stop the engine serving the rest
+                    System.err.println("Error on connection, closing it: " + e);
+                    closeAttached(key);
+                }
+            }
+            
+            Connection connection;
+            while ((connection = completed.poll()) != null) {
+                try {
+                    connection.onResponseReady();
+                } catch (RuntimeException e) {
+                    System.err.println("Error sending response, closing connection: " + e);
+                    connection.close();
+                }
+            }
+            while ((connection = streamsReady.poll()) != null) {
+                try {
+                    connection.sendStreamEvent();
+                } catch (RuntimeException e) {
+                    System.err.println("Error sending stream event, closing connection: " + e);
+                    connection.close();
+                }
+            }
+            
+            long now = System.currentTimeMillis();
+            if (now - lastSweep >= SELECT_TIMEOUT_MS) {
+                closeIdleConnections(now);
+                lastSweep = now;
+            }
+        }
+        closeAll();
+    }
+    
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+    
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                // Attached before any interest is set, so no selected key is ever without its connection
+                SelectionKey key = channel.register(selector, 0);
+                key.attach(new Connection(channel, key, ((InetSocketAddress) channel.getRemoteAddress()).getAddress()));
+                key.interestOps(SelectionKey.OP_READ);
+                metrics.connectionOpened();
+            } catch (IOException e) {
+                // The client went away while being set up; keep accepting the others
+                channel.close();
+            }
+        }
+    }
+    
+    private static void closeAttached(SelectionKey key) {
+        Object attachment = key.attachment();
+        if (attachment instanceof Connection) {
+            ((Connection) attachment).close();
+        }
+    }
+    
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(READ_BUFFER_SIZE);
+    }
+    
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (buffer.capacity() == READ_BUFFER_SIZE && bufferPool.size() < MAX_POOLED_BUFFERS) {
+            buffer.clear();
+            bufferPool.push(buffer);
+        }
+    }
+    
+    private void closeIdleConnections(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                Connection connection = (Connection) attachment;
+                if (connection.stream != null) {
+                    connection.checkStream(now);
+                } else if (connection.isIdle() && now - connection.lastActive > IDLE_TIMEOUT_MS) {
+                    connection.close();
+                }
+            }
+        }
+    }
+    
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                ((Connection) attachment).close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Error closing NIO engine: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Per-connection state. Only the selector thread touches the buffers;
+     * workers hand a finished response back through {@code completed}.
+     */
+    private class Connection implements PlayerStreams.Sink {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final InetAddress client;
+        private ByteBuffer in = acquireBuffer();
+        private ByteBuffer[] out;
+        private final HttpRequestParser parser = new HttpRequestParser();
+        private final HttpBodyReader bodyReader = new HttpBodyReader(SwiftFoodServer.MAX_BODY_SIZE);
+        private int headLength;
+        private final HttpResponseWriter writer = new HttpResponseWriter();
+        private volatile HttpResponse pendingResponse;
+        private boolean inFlight = false;
+        private boolean closeAfterWrite = false;
+        private boolean inputClosed = false;
+        private long lastActive = System.currentTimeMillis();
+        private PlayerStreams.Subscription stream;
+        
+        Connection(SocketChannel channel, SelectionKey key, InetAddress client) {
+            this.channel = channel;
+            this.key = key;
+            this.client = client;
+        }
+        
+        boolean isIdle() {
+            return !inFlight && out == null;
+        }
+        
+        void onReadable() throws IOException {
+            if (stream != null) {
+                // Nothing more is read from a stream's client; only watch for it hanging up
+                streamInput.clear();
+                if (channel.read(streamInput) < 0) close();
+                return;
+            }
+            if (!in.hasRemaining()) {
+                if (in.capacity() < MAX_BUFFER_SIZE) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.min(in.capacity() * 2, MAX_BUFFER_SIZE));
+                    in.flip();
+                    larger.put(in);
+                    in = larger;
+                } else if (inFlight || out != null) {
+                    // Too many pipelined bytes behind the current request: stop reading until it is answered
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    return;
+                } else {
+                    // The head alone fills the largest buffer
+                    sendAndClose(SwiftFoodServer.headTooLargeResponse());
+                    return;
+                }
+            }
+            
+            int read = channel.read(in);
+            if (read < 0) {
+                inputClosed = true;
+                if (isIdle()) close();
+                return;
+            }
+            metrics.bytesReceived(read);
+            lastActive = System.currentTimeMillis();
+            if (isIdle()) dispatchNext();
+        }
+        
+        void onWritable() throws IOException {
+            metrics.bytesSent(channel.write(out));
+            if (HttpResponseWriter.hasRemaining(out)) return;
+            
+            out = null;
+            lastActive = System.currentTimeMillis();
+            if (closeAfterWrite || (inputClosed && in.position() == 0)) {
+                close();
+                return;
+            }
+            if (stream != null) {
+                key.interestOps(SelectionKey.OP_READ);
+                sendStreamEvent();
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            dispatchNext();
+            if (inputClosed && isIdle()) close();
+        }
+        
+        void onResponseReady() {
+            if (!key.isValid()) {
+                HttpResponse response = pendingResponse;
+                if (response != null && response.getStream() != null) response.getStream().close();
+                return;
+            }
+            inFlight = false;
+            
+            // Drop the answered request head, keeping any pipelined bytes behind it
+            in.flip();
+            in.position(headLength);
+            in.compact();
+            headLength = 0;
+            parser.reset();
+            
+            HttpResponse response = pendingResponse;
+            pendingResponse = null;
+            if (response.getStream() != null) {
+                startStream(response);
+                return;
+            }
+            send(writer.encode(response, !closeAfterWrite));
+        }
+        
+        /**
+         * Turns this connection into an event stream: the response head and
+         * opening event go out, and the read buffer goes back to the pool.
+         */
+        private void startStream(HttpResponse response) {
+            stream = response.getStream();
+            releaseBuffer(in);
+            in = streamInput;
+            closeAfterWrite = false;
+            send(writer.encode(response, false));
+            stream.attach(this);
+        }
+        
+        @Override
+        public void streamReady(PlayerStreams.Subscription subscription) {
+            streamsReady.add(this);
+            selector.wakeup();
+        }
+        
+        /**
+         * Writes the stream's next event, unless the previous one is still
+         * going out; it is then sent once that write completes, covering
+         * every change made in between.
+         */
+        void sendStreamEvent() {
+            if (!key.isValid() || out != null) return;
+            ByteBuffer event = stream.nextEvent();
+            if (event == null) return;
+            closeAfterWrite = stream.isFinished();
+            send(new ByteBuffer[] { event });
+        }
+        
+        /** Sends a heartbeat on a quiet stream and drops one whose client stopped reading. */
+        void checkStream(long now) {
+            if (out == null) {
+                if (now - lastActive >= HEARTBEAT_INTERVAL_MS) send(new ByteBuffer[] { PlayerStreams.heartbeat() });
+            } else if (now - lastActive > IDLE_TIMEOUT_MS) {
+                close();
+            }
+        }
+        
+        /**
+         * Advances the request at the front of the buffer: parses its head,
+         * streams its body into the body reader and, once complete, hands it to a worker.
+         */
+        private void dispatchNext() {
+            if (headLength == 0) {
+                int parsed = parser.parse(in);
+                if (parsed == HttpRequestParser.INCOMPLETE) return;
+                if (parsed == HttpRequestParser.MALFORMED) {
+                    sendAndClose(SwiftFoodServer.createErrorResponse("Malformed request", 400));
+                    return;
+                }
+                headLength = parsed;
+                bodyReader.begin(parser);
+                if (bodyReader.status() == HttpBodyReader.Status.OK && parser.headerEquals("Expect", "100-continue")
+                        && in.position() == headLength) {
+                    send(new ByteBuffer[] { ByteBuffer.wrap(SwiftFoodServer.CONTINUE_RESPONSE) });
+                    return;
+                }
+            }
+            
+            // Body bytes are decoded out of the buffer as they arrive; only the head stays behind
+            byte[] data = in.array();
+            int available = in.position() - headLength;
+            int used = bodyReader.feed(data, headLength, available);
+            System.arraycopy(data, headLength + used, data, headLength, available - used);
+            in.position(headLength + available - used);
+            
+            if (bodyReader.status() != HttpBodyReader.Status.OK) {
+                sendAndClose(SwiftFoodServer.bodyErrorResponse(bodyReader.status()));
+                return;
+            }
+            if (!bodyReader.isComplete()) return;
+            
+            String body = new String(bodyReader.body(), StandardCharsets.UTF_8);
+            
+            // The parser keeps pointing into the buffer until the response is
+            // ready, so the head is only dropped in onResponseReady
+            inFlight = true;
+            closeAfterWrite = !parser.isKeepAlive();
+            try {
+                workers.submit(() -> {
+                    try {
+                        pendingResponse = server.handleRequest(parser, body, client);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error handling request: " + e);
+                    } finally {
+                        // Whatever happened, the connection gets an answer and leaves the in-flight state
+                        if (pendingResponse == null) {
+                            pendingResponse = SwiftFoodServer.createErrorResponse("Internal server error", 500);
+                        }
+                        completed.add(this);
+                        selector.wakeup();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Every worker is busy and the queue is full: shed the request at once
+                inFlight = false;
+                metrics.rejected(ServerMetrics.Rejection.OVERLOADED);
+                sendAndClose(SwiftFoodServer.overloadedResponse());
+            }
+        }
+        
+        private void sendAndClose(HttpResponse response) {
+            closeAfterWrite = true;
+            send(writer.encode(response, false));
+        }
+        
+        private void send(ByteBuffer[] response) {
+            out = response;
+            try {
+                onWritable();
+                if (out != null) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException | CancelledKeyException e) {
+                close();
+            }
+        }
+        
+        void close() {
+            if (!key.isValid()) return;
+            key.cancel();
+            metrics.connectionClosed();
+            // A buffer may still be read by a worker while a request is in flight
+            if (!inFlight) releaseBuffer(in);
+            if (stream != null) stream.close();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing client channel: " + e.getMessage());
+            }
+        }
+    }
+}
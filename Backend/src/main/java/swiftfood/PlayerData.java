@@ -0,0 +1,364 @@
+package swiftfood;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * PlayerData class represents a player in the SwiftFood game
+ */
+public class PlayerData {
+    // Upper bounds that keep every counter, and the XP a level needs, inside an int
+    public static final int MAX_LEVEL = 10_000;
+    public static final int XP_PER_LEVEL = 100;
+    public static final int MAX_COINS = 1_000_000_000;
+    
+    private final String playerId;
+    private final long key;
+    private final AtomicReference<State> state;
+    private volatile long createdAt;
+    private volatile ChangeListener changeListener;
+    
+    // Scores this player is ranked under; owned by Leaderboard, guarded by its lock
+    long[] rankedScores;
+    
+    // Owned by PlayerStore: last lookup time for eviction, and whether it was
+    // spilled to disk (guarded by the store's lock for this player)
+    long lastAccess;
+    boolean evicted;
+    
+    /** Told after every change to a player's state. */
+    public interface ChangeListener {
+        void playerChanged(PlayerData player);
+    }
+    
+    /**
+     * Immutable snapshot of everything about a player that changes during play.
+     * Mutations build a new State and publish it with compareAndSet, so
+     * concurrent updates are never lost and level/xp always move together.
+     */
+    static final class State {
+        final String playerName;
+        final int level;
+        final int xp;
+        final int coins;
+        final int currentLevel;
+        final int completedTasks;
+        final long achievements; // bits by Achievements index
+        final long lastPlayed;
+        
+        State(String playerName, int level, int xp, int coins, int currentLevel, int completedTasks,
+                long achievements, long lastPlayed) {
+            this.playerName = playerName;
+            this.level = level;
+            this.xp = xp;
+            this.coins = coins;
+            this.currentLevel = currentLevel;
+            this.completedTasks = completedTasks;
+            this.achievements = achievements;
+            this.lastPlayed = lastPlayed;
+        }
+    }
+    
+    public PlayerData(String playerId) {
+        this.playerId = playerId;
+        this.key = PlayerIdGenerator.parse(playerId);
+        if (key < 0) {
+            throw new IllegalArgumentException("Malformed player id: " + playerId);
+        }
+        String playerName = "Player_" + playerId.substring(7); // Remove "player_" prefix
+        long now = System.currentTimeMillis();
+        this.state = new AtomicReference<>(new State(playerName, 1, 0, 100, 1, 0, 0, now));
+        this.createdAt = now;
+    }
+    
+    // Getters
+    public String getPlayerId() { return playerId; }
+    public long getKey() { return key; }
+    public String getPlayerName() { return state.get().playerName; }
+    public int getLevel() { return state.get().level; }
+    public int getXp() { return state.get().xp; }
+    public int getCoins() { return state.get().coins; }
+    public int getCurrentLevel() { return state.get().currentLevel; }
+    public int getCompletedTasks() { return state.get().completedTasks; }
+    public long getAchievementBits() { return state.get().achievements; }
+    public long getCreatedAt() { return createdAt; }
+    public long getLastPlayed() { return state.get().lastPlayed; }
+    
+    public boolean hasAchievement(String achievementName) {
+        return (state.get().achievements & Achievements.bit(achievementName)) != 0;
+    }
+    
+    /** XP earned over all levels: what the earlier levels took to clear plus the current xp. */
+    public long getTotalXp() {
+        State s = state.get();
+        return 50L * s.level * (s.level - 1) + s.xp;
+    }
+    
+    // Setters
+    public void setPlayerName(String playerName) {
+        update(s -> new State(playerName, s.level, s.xp, s.coins, s.currentLevel, s.completedTasks, s.achievements, s.lastPlayed));
+    }
+    
+    public void setLevel(int level) {
+        update(s -> new State(s.playerName, level, s.xp, s.coins, s.currentLevel, s.completedTasks, s.achievements, s.lastPlayed));
+    }
+    
+    public void setXp(int xp) {
+        update(s -> new State(s.playerName, s.level, xp, s.coins, s.currentLevel, s.completedTasks, s.achievements, s.lastPlayed));
+    }
+    
+    public void setCoins(int coins) {
+        update(s -> new State(s.playerName, s.level, s.xp, coins, s.currentLevel, s.completedTasks, s.achievements, s.lastPlayed));
+    }
+    
+    public void setCurrentLevel(int currentLevel) {
+        update(s -> new State(s.playerName, s.level, s.xp, s.coins, currentLevel, s.completedTasks, s.achievements, s.lastPlayed));
+    }
+    
+    public void setCompletedTasks(int completedTasks) {
+        update(s -> new State(s.playerName, s.level, s.xp, s.coins, s.currentLevel, completedTasks, s.achievements, s.lastPlayed));
+    }
+    
+    // Game methods
+    public void addXP(int xpGained) {
+        long now = System.currentTimeMillis();
+        update(s -> checkLevelUp(new State(s.playerName, s.level, s.xp, s.coins,
+                s.currentLevel, s.completedTasks, s.achievements, now), (long) s.xp + xpGained));
+    }
+    
+    public void addCoins(int coinsGained) {
+        long now = System.currentTimeMillis();
+        update(s -> new State(s.playerName, s.level, s.xp, clamp((long) s.coins + coinsGained, 0, MAX_COINS),
+                s.currentLevel, s.completedTasks, s.achievements, now));
+    }
+    
+    public void incrementLevel() {
+        long now = System.currentTimeMillis();
+        update(s -> new State(s.playerName, s.level, s.xp, s.coins, s.currentLevel + 1, s.completedTasks, s.achievements, now));
+    }
+    
+    public void completeTask() {
+        long now = System.currentTimeMillis();
+        update(s -> new State(s.playerName, s.level, s.xp, s.coins, s.currentLevel, s.completedTasks + 1, s.achievements, now));
+    }
+    
+    /**
+     * Applies every field of a partial update in a single state change.
+     */
+    public void applyUpdate(PlayerUpdate update) {
+        long now = System.currentTimeMillis();
+        long unlocked = 0;
+        for (String achievement : update.getUnlockedAchievements()) {
+            unlocked |= Achievements.bit(achievement);
+        }
+        long unlock = unlocked;
+        update(s -> new State(
+                update.has(PlayerUpdate.NAME) ? update.getPlayerName() : s.playerName,
+                update.has(PlayerUpdate.LEVEL) ? update.getLevel() : s.level,
+                update.has(PlayerUpdate.XP) ? update.getXp() : s.xp,
+                update.has(PlayerUpdate.COINS) ? update.getCoins() : s.coins,
+                update.has(PlayerUpdate.CURRENT_LEVEL) ? update.getCurrentLevel() : s.currentLevel,
+                update.has(PlayerUpdate.COMPLETED_TASKS) ? update.getCompletedTasks() : s.completedTasks,
+                s.achievements | unlock,
+                now));
+    }
+    
+    /** Unlocks a known achievement, returning false if it was already unlocked or does not exist. */
+    public boolean unlockAchievement(String achievementName) {
+        long bit = Achievements.bit(achievementName);
+        while (true) {
+            State current = state.get();
+            if (bit == 0 || (current.achievements & bit) != 0) return false;
+            State next = new State(current.playerName, current.level, current.xp, current.coins,
+                    current.currentLevel, current.completedTasks, current.achievements | bit, current.lastPlayed);
+            if (state.compareAndSet(current, next)) {
+                ChangeListener listener = changeListener;
+                if (listener != null) listener.playerChanged(this);
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Spends XP on levels, each needing {@code level * XP_PER_LEVEL}. The sum
+     * is a long so no gain can wrap it; at MAX_LEVEL the XP stops just short
+     * of the next level.
+     */
+    private static State checkLevelUp(State s, long xp) {
+        int level = s.level;
+        xp = Math.max(0, xp);
+        long xpNeeded = (long) level * XP_PER_LEVEL;
+        while (xp >= xpNeeded && level < MAX_LEVEL) {
+            level++;
+            xp -= xpNeeded;
+            xpNeeded = (long) level * XP_PER_LEVEL;
+        }
+        return new State(s.playerName, level, (int) Math.min(xp, xpNeeded - 1), s.coins, s.currentLevel,
+                s.completedTasks, s.achievements, s.lastPlayed);
+    }
+    
+    private static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+    
+    /**
+     * Applies a change with a compare-and-set retry loop; the function must be
+     * free of side effects because it may run more than once.
+     */
+    private State update(UnaryOperator<State> change) {
+        while (true) {
+            State current = state.get();
+            State next = change.apply(current);
+            if (state.compareAndSet(current, next)) {
+                ChangeListener listener = changeListener;
+                if (listener != null) listener.playerChanged(this);
+                return next;
+            }
+        }
+    }
+    
+    void setChangeListener(ChangeListener listener) {
+        this.changeListener = listener;
+    }
+    
+    /**
+     * Restores timestamps when a player is rebuilt from the journal or a snapshot.
+     */
+    void restoreTimestamps(long createdAtMillis, long lastPlayedMillis) {
+        this.createdAt = createdAtMillis;
+        restoreLastPlayed(lastPlayedMillis);
+    }
+    
+    void restoreLastPlayed(long lastPlayedMillis) {
+        update(s -> new State(s.playerName, s.level, s.xp, s.coins, s.currentLevel, s.completedTasks,
+                s.achievements, lastPlayedMillis));
+    }
+    
+    /**
+     * Writes the full player state in the compact binary snapshot format.
+     * Only unlocked achievements are written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        State s = state.get();
+        out.writeUTF(playerId);
+        out.writeUTF(s.playerName);
+        out.writeInt(s.level);
+        out.writeInt(s.xp);
+        out.writeInt(s.coins);
+        out.writeInt(s.currentLevel);
+        out.writeInt(s.completedTasks);
+        out.writeLong(createdAt);
+        out.writeLong(s.lastPlayed);
+        
+        // Names rather than bits, so snapshots survive changes to the registry
+        out.writeByte(Long.bitCount(s.achievements));
+        for (int i = 0; i < Achievements.count(); i++) {
+            if ((s.achievements & (1L << i)) != 0) out.writeUTF(Achievements.name(i));
+        }
+    }
+    
+    public static PlayerData readFrom(DataInput in) throws IOException {
+        PlayerData player = new PlayerData(in.readUTF());
+        String playerName = in.readUTF();
+        int level = in.readInt();
+        int xp = in.readInt();
+        int coins = in.readInt();
+        int currentLevel = in.readInt();
+        int completedTasks = in.readInt();
+        player.createdAt = in.readLong();
+        long lastPlayed = in.readLong();
+        
+        long achievements = 0;
+        int unlocked = in.readUnsignedByte();
+        for (int i = 0; i < unlocked; i++) {
+            achievements |= Achievements.bit(in.readUTF());
+        }
+        player.state.set(new State(playerName, level, xp, coins, currentLevel, completedTasks, achievements, lastPlayed));
+        return player;
+    }
+    
+    public String toJson() {
+        return writeJson(JsonWriter.local()).toString();
+    }
+    
+    /** Streams this player as a JSON object into the writer, from one consistent State. */
+    public JsonWriter writeJson(JsonWriter json) {
+        return writeJson(json, state.get());
+    }
+    
+    /** Writes one captured state, so a stream's snapshot and its later deltas start from the same point. */
+    JsonWriter writeJson(JsonWriter json, State s) {
+        json.beginObject();
+        json.name("playerId").value(playerId);
+        json.name("playerName").value(s.playerName);
+        json.name("level").value(s.level);
+        json.name("xp").value(s.xp);
+        json.name("coins").value(s.coins);
+        json.name("currentLevel").value(s.currentLevel);
+        json.name("completedTasks").value(s.completedTasks);
+        json.name("createdAt").value(formatTimestamp(createdAt));
+        json.name("lastPlayed").value(formatTimestamp(s.lastPlayed));
+        
+        json.name("achievements").beginObject();
+        for (int i = 0; i < Achievements.count(); i++) {
+            json.name(Achievements.name(i)).value((s.achievements & (1L << i)) != 0);
+        }
+        json.endObject();
+        
+        return json.endObject();
+    }
+    
+    /**
+     * Writes the fields that differ between two states of this player, in the
+     * same shape as {@link #writeJson}, so a client can merge it into the
+     * document it holds. Only newly unlocked achievements are listed.
+     *
+     * @return whether any field differed; lastPlayed alone does not count
+     */
+    boolean writeDelta(JsonWriter json, State from, State to) {
+        int start = json.size();
+        json.beginObject();
+        if (!from.playerName.equals(to.playerName)) json.name("playerName").value(to.playerName);
+        if (from.level != to.level) json.name("level").value(to.level);
+        if (from.xp != to.xp) json.name("xp").value(to.xp);
+        if (from.coins != to.coins) json.name("coins").value(to.coins);
+        if (from.currentLevel != to.currentLevel) json.name("currentLevel").value(to.currentLevel);
+        if (from.completedTasks != to.completedTasks) json.name("completedTasks").value(to.completedTasks);
+        long unlocked = to.achievements & ~from.achievements;
+        if (unlocked != 0) {
+            json.name("achievements").beginObject();
+            for (int i = 0; i < Achievements.count(); i++) {
+                if ((unlocked & (1L << i)) != 0) json.name(Achievements.name(i)).value(true);
+            }
+            json.endObject();
+        }
+        json.endObject();
+        return json.size() - start > 2;
+    }
+    
+    /** The current state, for comparing with one captured earlier. */
+    State getState() {
+        return state.get();
+    }
+    
+    // Same text as Date.toString(), which the API has always returned
+    private static String formatTimestamp(long millis) {
+        return new Date(millis).toString();
+    }
+    
+    @Override
+    public String toString() {
+        State s = state.get();
+        return "PlayerData{" +
+                "playerId='" + playerId + '\'' +
+                ", playerName='" + s.playerName + '\'' +
+                ", level=" + s.level +
+                ", xp=" + s.xp +
+                ", coins=" + s.coins +
+                ", currentLevel=" + s.currentLevel +
+                ", completedTasks=" + s.completedTasks +
+                '}';
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,84 @@
+package swiftfood;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * PlayerIdGenerator hands out unique 63-bit player keys, Snowflake style:
+ * 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id and a
+ * 12-bit sequence within the millisecond. The (timestamp, sequence) pair is
+ * advanced with a single CAS, so concurrent signups never collide or block.
+ *
+ * The external form stays "player_" + decimal key, which is what clients,
+ * the journal and {@link PlayerData} already use.
+ */
+public class PlayerIdGenerator {
+    public static final String PREFIX = "player_";
+    
+    // 2024-01-01T00:00:00Z; keeps the 41-bit timestamp good for ~69 years
+    private static final long EPOCH = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    
+    private final long node;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id issued
+    private final AtomicLong last = new AtomicLong();
+    
+    public PlayerIdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+    }
+    
+    /** Next unique key. */
+    public long nextKey() {
+        while (true) {
+            long previous = last.get();
+            long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+            // Same (or an earlier, if the clock stepped back) millisecond: take the next sequence;
+            // when a millisecond's 4096 ids run out this borrows from the next one
+            long next = now > previous ? now : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+    
+    /** Next unique id in its external string form. */
+    public String nextId() {
+        return format(nextKey());
+    }
+    
+    public static String format(long key) {
+        return PREFIX + key;
+    }
+    
+    /**
+     * Parses the numeric key out of an external id without allocating.
+     *
+     * @return the key, or -1 when the id is not "player_" followed by a positive
+     *         number written without leading zeros, so each player has one id
+     */
+    public static long parse(CharSequence id) {
+        return parse(id, 0, id.length());
+    }
+    
+    public static long parse(CharSequence id, int start, int end) {
+        int length = end - start;
+        if (length <= PREFIX.length() || length > PREFIX.length() + 19) return -1;
+        for (int i = 0; i < PREFIX.length(); i++) {
+            if (id.charAt(start + i) != PREFIX.charAt(i)) return -1;
+        }
+        if (id.charAt(start + PREFIX.length()) == '0') return -1;
+        long key = 0;
+        for (int i = start + PREFIX.length(); i < end; i++) {
+            int digit = id.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || key > (Long.MAX_VALUE - digit) / 10) return -1;
+            key = key * 10 + digit;
+        }
+        return key == 0 ? -1 : key;
+    }
+}
@@ -0,0 +1,227 @@
+package swiftfood;
+
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * PlayerIndex maps numeric player keys to players without boxing or String
+ * hashing. Keys are spread over lock-striped segments; each segment is an
+ * open-addressing table of parallel long/PlayerData arrays with linear
+ * probing and backward-shift deletion, so there are no tombstones.
+ *
+ * Lookups are optimistic StampedLock reads and normally take no lock at all;
+ * writers lock only their own segment.
+ */
+public class PlayerIndex {
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+    private static final int INITIAL_SEGMENT_CAPACITY = 256;
+    private static final long EMPTY = 0;
+    
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    
+    public PlayerIndex() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+    
+    public PlayerData get(long key) {
+        if (key == EMPTY) return null;
+        long hash = mix(key);
+        return segments[(int) hash & SEGMENT_MASK].get(key, hash >>> SEGMENT_BITS);
+    }
+    
+    /** Associates the player with the key, returning the previous player if any. */
+    public PlayerData put(long key, PlayerData player) {
+        if (key == EMPTY) throw new IllegalArgumentException("Player key must be non-zero");
+        long hash = mix(key);
+        return segments[(int) hash & SEGMENT_MASK].put(key, hash >>> SEGMENT_BITS, player);
+    }
+    
+    public PlayerData remove(long key) {
+        if (key == EMPTY) return null;
+        long hash = mix(key);
+        return segments[(int) hash & SEGMENT_MASK].remove(key, hash >>> SEGMENT_BITS);
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+    
+    /** Visits every player; each segment is read-locked while it is visited. */
+    public void forEach(Consumer<PlayerData> action) {
+        for (Segment segment : segments) {
+            segment.forEach(action);
+        }
+    }
+    
+    /**
+     * A player from a random occupied slot, or null if the index is empty.
+     * Used to pick eviction candidates without keeping an LRU list.
+     */
+    public PlayerData sample(Random random) {
+        int start = random.nextInt(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            PlayerData player = segments[(start + i) & SEGMENT_MASK].sample(random);
+            if (player != null) return player;
+        }
+        return null;
+    }
+    
+    // Murmur3 finalizer: Snowflake keys differ mostly in their high bits
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+    
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private PlayerData[] values = new PlayerData[INITIAL_SEGMENT_CAPACITY];
+        private volatile int size;
+        
+        PlayerData get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                PlayerData value = probe(keys, values, key, hash);
+                if (lock.validate(stamp)) return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return probe(keys, values, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        // Bounded by the table length so a torn optimistic read cannot spin forever
+        private static PlayerData probe(long[] keys, PlayerData[] values, long key, long hash) {
+            int mask = keys.length - 1;
+            int index = (int) hash & mask;
+            for (int i = 0; i <= mask; i++) {
+                long k = keys[index];
+                if (k == key) {
+                    // keys and values can come from different tables mid-resize; validate() rejects that read
+                    return index < values.length ? values[index] : null;
+                }
+                if (k == EMPTY) return null;
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+        
+        PlayerData put(long key, long hash, PlayerData player) {
+            long stamp = lock.writeLock();
+            try {
+                if ((size + 1) * 4 > keys.length * 3) {
+                    resize();
+                }
+                int mask = keys.length - 1;
+                int index = (int) hash & mask;
+                while (keys[index] != EMPTY) {
+                    if (keys[index] == key) {
+                        PlayerData previous = values[index];
+                        values[index] = player;
+                        return previous;
+                    }
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = player;
+                size++;
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        PlayerData remove(long key, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = keys.length - 1;
+                int index = (int) hash & mask;
+                while (keys[index] != key) {
+                    if (keys[index] == EMPTY) return null;
+                    index = (index + 1) & mask;
+                }
+                PlayerData removed = values[index];
+                
+                // Backward-shift later entries of the probe run into the gap
+                int gap = index;
+                int next = (gap + 1) & mask;
+                while (keys[next] != EMPTY) {
+                    int home = (int) (mix(keys[next]) >>> SEGMENT_BITS) & mask;
+                    // Move the entry if its home slot is not cyclically within (gap, next]
+                    if (((next - home) & mask) >= ((next - gap) & mask)) {
+                        keys[gap] = keys[next];
+                        values[gap] = values[next];
+                        gap = next;
+                    }
+                    next = (next + 1) & mask;
+                }
+                keys[gap] = EMPTY;
+                values[gap] = null;
+                size--;
+                return removed;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        PlayerData sample(Random random) {
+            if (size == 0) return null;
+            long stamp = lock.readLock();
+            try {
+                int mask = values.length - 1;
+                int start = random.nextInt(values.length);
+                for (int i = 0; i <= mask; i++) {
+                    PlayerData value = values[(start + i) & mask];
+                    if (value != null) return value;
+                }
+                return null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        void forEach(Consumer<PlayerData> action) {
+            long stamp = lock.readLock();
+            try {
+                for (PlayerData value : values) {
+                    if (value != null) action.accept(value);
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        private void resize() {
+            long[] oldKeys = keys;
+            PlayerData[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length * 2];
+            PlayerData[] newValues = new PlayerData[oldKeys.length * 2];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int index = (int) (mix(oldKeys[i]) >>> SEGMENT_BITS) & mask;
+                while (newKeys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                newKeys[index] = oldKeys[i];
+                newValues[index] = oldValues[i];
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * PlayerJournal is the append-only write-ahead log behind PlayerStore.
+ *
+ * Records are appended to an in-memory batch; a single flusher thread writes
+ * each batch with one FileChannel write and one fsync (group commit), so many
+ * concurrent mutations share the cost of a disk flush. Callers that need
+ * durability wait for their sequence number with {@link #awaitDurable(long)}.
+ *
+ * Each record is framed as [length][payload][crc32] so a torn tail left by a
+ * crash is detected and cut off during recovery. The payload ends with an
+ * optional text field (a name) that older records simply do not have. Log files are numbered by
+ * generation; a snapshot of generation N holds the state at the start of log N.
+ */
+public class PlayerJournal implements Closeable {
+    public static final byte CREATE = 1;
+    public static final byte DELETE = 2;
+    public static final byte ADD_XP = 3;
+    public static final byte ADD_COINS = 4;
+    public static final byte INCREMENT_LEVEL = 5;
+    public static final byte COMPLETE_TASK = 6;
+    public static final byte SET_NAME = 7;
+    public static final byte SET_LEVEL = 8;
+    public static final byte SET_XP = 9;
+    public static final byte SET_COINS = 10;
+    public static final byte SET_CURRENT_LEVEL = 11;
+    public static final byte SET_COMPLETED_TASKS = 12;
+    public static final byte UNLOCK_ACHIEVEMENT = 13;
+    
+    private static final int INITIAL_BATCH_SIZE = 64 * 1024;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+    
+    /** Receives records read back during recovery. */
+    public interface RecordHandler {
+        void apply(byte type, long timestamp, String playerId, int value, String text);
+    }
+    
+    private final Path directory;
+    private final boolean fsync;
+    private final Object lock = new Object();
+    private final Thread flusher;
+    
+    // Guarded by lock
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private ByteBuffer writing = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean closed;
+    private final CRC32 crc = new CRC32();
+    
+    // Only touched by the flusher thread, or under lock while rotating
+    private FileChannel channel;
+    private long generation;
+    private long logSize;
+    
+    public PlayerJournal(Path directory, long generation, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.generation = generation;
+        Files.createDirectories(directory);
+        this.channel = openLog(generation);
+        this.logSize = channel.size();
+        
+        flusher = new Thread(this::flushLoop, "player-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    /**
+     * Appends a record to the current batch.
+     *
+     * @return the record's sequence number, for {@link #awaitDurable(long)}
+     */
+    public long append(byte type, long timestamp, String playerId, int value) throws IOException {
+        return append(type, timestamp, playerId, value, null);
+    }
+    
+    /**
+     * Appends a record carrying a text value as well, such as a player name.
+     *
+     * @return the record's sequence number, for {@link #awaitDurable(long)}
+     */
+    public long append(byte type, long timestamp, String playerId, int value, String text) throws IOException {
+        byte[] id = playerId.getBytes(StandardCharsets.UTF_8);
+        byte[] textBytes = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 1 + 8 + 2 + id.length + 4 + (textBytes == null ? 0 : 2 + textBytes.length);
+        if (payloadLength > MAX_RECORD_SIZE) {
+            throw new IOException("Journal record too large for player " + playerId);
+        }
+        
+        synchronized (lock) {
+            if (failure != null) throw failure;
+            if (closed) throw new IOException("Journal is closed");
+            
+            ensureCapacity(payloadLength + 8);
+            int start = pending.position();
+            pending.putInt(payloadLength);
+            pending.put(type).putLong(timestamp).putShort((short) id.length).put(id).putInt(value);
+            if (textBytes != null) {
+                pending.putShort((short) textBytes.length).put(textBytes);
+            }
+            
+            crc.reset();
+            crc.update(pending.array(), start + 4, payloadLength);
+            pending.putInt((int) crc.getValue());
+            
+            long seq = ++appendedSeq;
+            lock.notifyAll();
+            return seq;
+        }
+    }
+    
+    /** Sequence number of the last record appended so far. */
+    public long lastSequence() {
+        synchronized (lock) {
+            return appendedSeq;
+        }
+    }
+    
+    /**
+     * Blocks until the record with this sequence number has been written and
+     * (unless fsync is disabled) forced to disk.
+     */
+    public void awaitDurable(long seq) throws IOException {
+        synchronized (lock) {
+            while (durableSeq < seq) {
+                if (failure != null) throw failure;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for journal flush");
+                }
+            }
+        }
+    }
+    
+    /** Size in bytes of the current log generation, including unflushed records. */
+    public long currentLogSize() {
+        synchronized (lock) {
+            return logSize + pending.position();
+        }
+    }
+    
+    /**
+     * Flushes everything appended so far and starts a new log generation.
+     * The caller must ensure no appends race with this call.
+     *
+     * @return the new generation number
+     */
+    public long rotate() throws IOException {
+        awaitDurable(lastSequence());
+        synchronized (lock) {
+            long next = generation + 1;
+            FileChannel nextChannel = openLog(next);
+            channel.close();
+            channel = nextChannel;
+            generation = next;
+            logSize = 0;
+            return next;
+        }
+    }
+    
+    /**
+     * Deletes log files older than the given generation once a snapshot covers them.
+     */
+    public void deleteLogsBefore(long keepGeneration) throws IOException {
+        for (long gen : listGenerations(directory, "wal-", ".log")) {
+            if (gen < keepGeneration) {
+                Files.deleteIfExists(logPath(directory, gen));
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        long last = lastSequence();
+        try {
+            awaitDurable(last);
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                flusher.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+    
+    private void flushLoop() {
+        while (true) {
+            long batchSeq;
+            synchronized (lock) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) return;
+                
+                // Swap batches so appenders keep going while this one is written
+                ByteBuffer batch = pending;
+                pending = writing;
+                writing = batch;
+                batchSeq = appendedSeq;
+            }
+            
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+                synchronized (lock) {
+                    logSize += writing.limit();
+                    writing.clear();
+                    durableSeq = batchSeq;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                System.err.println("Player journal write failed: " + e.getMessage());
+                return;
+            }
+        }
+    }
+    
+    private void ensureCapacity(int needed) {
+        if (pending.remaining() >= needed) return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+    
+    private FileChannel openLog(long gen) throws IOException {
+        return FileChannel.open(logPath(directory, gen),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    static Path logPath(Path directory, long gen) {
+        return directory.resolve(String.format("wal-%010d.log", gen));
+    }
+    
+    /**
+     * Replays every record in log generations {@code >= fromGeneration}, in order.
+     * A torn or corrupt tail in the newest log is truncated away: that is
+     * what a crash mid-write leaves. Damage in an older log is not, and
+     * replaying the logs after it would apply newer records on top of the
+     * missing ones, so it stops recovery instead.
+     *
+     * @return the number of records replayed
+     * @throws IOException if a log other than the newest is corrupt
+     */
+    public static long replay(Path directory, long fromGeneration, RecordHandler handler) throws IOException {
+        long[] records = new long[1];
+        List<Long> generations = listGenerations(directory, "wal-", ".log");
+        long newest = generations.isEmpty() ? -1 : generations.get(generations.size() - 1);
+        for (long gen : generations) {
+            if (gen < fromGeneration) continue;
+            Path path = logPath(directory, gen);
+            try (FileChannel log = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long validBytes = replayLog(log, handler, records);
+                if (validBytes == log.size()) continue;
+                if (gen != newest) {
+                    throw new IOException("Corrupt journal " + path.getFileName() + " at byte " + validBytes
+                            + " of " + log.size() + "; later logs cannot be applied over the gap");
+                }
+                System.err.println("Truncating torn journal tail in " + path.getFileName()
+                        + " at byte " + validBytes);
+                log.truncate(validBytes);
+            }
+        }
+        return records[0];
+    }
+    
+    /**
+     * Replays one log file, counting records into {@code records[0]}.
+     *
+     * @return the length of the intact prefix of the file
+     */
+    private static long replayLog(FileChannel log, RecordHandler handler, long[] records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+        CRC32 crc = new CRC32();
+        long validBytes = 0;
+        long filePos = 0;
+        boolean eof = false;
+        
+        while (true) {
+            if (!eof) {
+                int read = log.read(buffer, filePos);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filePos += read;
+                }
+            }
+            buffer.flip();
+            
+            while (buffer.remaining() >= 4) {
+                buffer.mark();
+                int length = buffer.getInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE) return validBytes;
+                if (buffer.remaining() < length + 4) {
+                    buffer.reset();
+                    break;
+                }
+                int payloadStart = buffer.position();
+                crc.reset();
+                crc.update(buffer.array(), payloadStart, length);
+                int expected = buffer.getInt(payloadStart + length);
+                if ((int) crc.getValue() != expected) return validBytes;
+                
+                byte type = buffer.get();
+                long timestamp = buffer.getLong();
+                int idLength = buffer.getShort() & 0xFFFF;
+                String playerId = new String(buffer.array(), buffer.position(), idLength, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + idLength);
+                int value = buffer.getInt();
+                String text = null;
+                if (buffer.position() < payloadStart + length) {
+                    int textLength = buffer.getShort() & 0xFFFF;
+                    text = new String(buffer.array(), buffer.position(), textLength, StandardCharsets.UTF_8);
+                }
+                buffer.position(payloadStart + length + 4);
+                
+                handler.apply(type, timestamp, playerId, value, text);
+                records[0]++;
+                validBytes += length + 8;
+            }
+            
+            if (eof) return validBytes;
+            buffer.compact();
+        }
+    }
+    
+    static List<Long> listGenerations(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return generations;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+}
@@ -0,0 +1,615 @@
+package swiftfood;
+
+import java.io.*;
+import java.lang.ref.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
+
+/**
+ * PlayerStore holds the players and makes their state durable.
+ *
+ * At most a configured number of players stay in memory. When there are more,
+ * the least recently used one of a small random sample is spilled to a
+ * ColdPlayerFile, and it is loaded back on its next access. An evicted player
+ * that a request still holds is reclaimed as the same instance, so a player
+ * never has two live copies.
+ *
+ * Each mutation is appended to the PlayerJournal before it is applied, and a
+ * request waits for its records with {@link #flush()} once, just before it
+ * answers, so concurrent requests share fsyncs. Snapshots of all players are
+ * written periodically (or when the log grows past a limit); on startup the
+ * newest snapshot is loaded and the log written since it is replayed.
+ */
+public class PlayerStore implements Closeable {
+    private static final int SNAPSHOT_MAGIC = 0x53465053; // "SFPS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long SNAPSHOT_CHECK_SECONDS = 10;
+    private static final int PLAYER_LOCK_STRIPES = 256;
+    private static final int EVICTION_SAMPLES = 8;
+    
+    private final PlayerIndex players = new PlayerIndex();
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final ColdPlayerFile cold;
+    private final int maxHotPlayers;
+    private final Path directory;
+    private final long snapshotIntervalMillis;
+    private final long maxLogBytes;
+    
+    // Mutations hold the read lock; a snapshot holds the write lock while it
+    // rotates the log and captures state, so the two always line up
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService snapshotter;
+    private final ThreadLocal<long[]> lastSequence = ThreadLocal.withInitial(() -> new long[1]);
+    
+    // A player's records are appended and applied under its stripe, so the log
+    // holds each player's changes in the order they took effect; that matters
+    // now that "set" records do not commute with "add" records
+    private final Object[] playerLocks = new Object[PLAYER_LOCK_STRIPES];
+    
+    // Evicted players, reclaimed on load while something still references them
+    private final Map<Long, EvictedPlayer> evicted = new ConcurrentHashMap<>();
+    private final ReferenceQueue<PlayerData> collected = new ReferenceQueue<>();
+    private boolean recovering;
+    
+    // Cache metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+    
+    private final PlayerJournal journal;
+    private volatile PlayerData.ChangeListener observer;
+    private volatile long lastSnapshotTime = System.currentTimeMillis();
+    private volatile long lastSnapshotSequence;
+    private long replayedRecords;
+    
+    public PlayerStore(Path directory, boolean fsync, long snapshotIntervalMillis, long maxLogBytes,
+                       int maxHotPlayers) throws IOException {
+        this.directory = directory;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        this.maxLogBytes = maxLogBytes;
+        this.maxHotPlayers = Math.max(1, maxHotPlayers);
+        for (int i = 0; i < playerLocks.length; i++) {
+            playerLocks[i] = new Object();
+        }
+        
+        Files.createDirectories(directory);
+        this.cold = new ColdPlayerFile(directory.resolve("players.cold"));
+        recovering = true;
+        long generation = recover();
+        rankRecoveredPlayers();
+        recovering = false;
+        this.journal = new PlayerJournal(directory, generation, fsync);
+        if (replayedRecords > 0) {
+            // Fold the replayed log into a snapshot at the next opportunity
+            lastSnapshotSequence = -1;
+        }
+        
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "player-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfDue,
+                SNAPSHOT_CHECK_SECONDS, SNAPSHOT_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    // Reads
+    public PlayerData get(CharSequence playerId) { return get(PlayerIdGenerator.parse(playerId)); }
+    public int size() { return players.size() + cold.size(); }
+    public Leaderboard getLeaderboard() { return leaderboard; }
+    
+    /** Told after each mutation is journaled and applied, outside the player's lock. */
+    public void setObserver(PlayerData.ChangeListener observer) { this.observer = observer; }
+    
+    // Cache metrics
+    public int getHotSize() { return players.size(); }
+    public int getColdSize() { return cold.size(); }
+    public long getHits() { return hits.sum(); }
+    public long getLoads() { return loads.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getLoadNanos() { return loadNanos.sum(); }
+    public long getMaxLoadNanos() { return maxLoadNanos.get(); }
+    
+    /**
+     * The player with this key, loading it back from the cold file if it was
+     * evicted, or null if there is no such player.
+     */
+    public PlayerData get(long playerKey) {
+        PlayerData player = players.get(playerKey);
+        if (player != null) {
+            hits.increment();
+        } else {
+            player = load(playerKey);
+            if (player == null) return null;
+            evictIfFull();
+        }
+        player.lastAccess = System.currentTimeMillis();
+        return player;
+    }
+    
+    /**
+     * Whether a player with this key exists, in memory or not. Never loads
+     * the player or counts as a use of it.
+     */
+    public boolean exists(long playerKey) {
+        return players.get(playerKey) != null || cold.contains(playerKey) || evicted.containsKey(playerKey);
+    }
+    
+    /**
+     * The player with this key as it stands, for reading only. A player not
+     * in memory is decoded from the cold file and left there, so this never
+     * loads the player or counts as a use of it. Null if there is no such
+     * player.
+     */
+    public PlayerData peek(long playerKey) {
+        PlayerData player = players.get(playerKey);
+        if (player != null) return player;
+        EvictedPlayer reference = evicted.get(playerKey);
+        player = reference == null ? null : reference.get();
+        if (player != null) return player;
+        try {
+            byte[] record = cold.get(playerKey);
+            // No record if a concurrent load has just moved it into memory
+            return record != null ? decode(record) : players.get(playerKey);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading cold player failed", e);
+        }
+    }
+    
+    // Mutations
+    public void create(PlayerData player) {
+        mutate(player, timestamp -> {
+            append(PlayerJournal.CREATE, timestamp, player, 0, player.getPlayerName());
+            players.put(player.getKey(), player);
+            leaderboard.add(player);
+        });
+    }
+    
+    public PlayerData delete(PlayerData player) {
+        PlayerData[] removed = new PlayerData[1];
+        mutate(player, timestamp -> {
+            append(PlayerJournal.DELETE, timestamp, player, 0, null);
+            removed[0] = players.remove(player.getKey());
+            if (removed[0] != null) leaderboard.remove(removed[0]);
+        });
+        return removed[0];
+    }
+    
+    public void addXP(PlayerData player, int xpGained) {
+        mutate(player, PlayerJournal.ADD_XP, xpGained, () -> player.addXP(xpGained));
+    }
+    
+    public void addCoins(PlayerData player, int coinsGained) {
+        mutate(player, PlayerJournal.ADD_COINS, coinsGained, () -> player.addCoins(coinsGained));
+    }
+    
+    public void incrementLevel(PlayerData player) {
+        mutate(player, PlayerJournal.INCREMENT_LEVEL, 0, player::incrementLevel);
+    }
+    
+    public void completeTask(PlayerData player) {
+        mutate(player, PlayerJournal.COMPLETE_TASK, 0, player::completeTask);
+    }
+    
+    /**
+     * Deducts coins if the player has enough of them.
+     *
+     * @return whether the coins were spent
+     */
+    public boolean spendCoins(PlayerData player, int amount) {
+        boolean[] spent = new boolean[1];
+        mutate(player, timestamp -> {
+            if (player.getCoins() < amount) return;
+            append(PlayerJournal.ADD_COINS, timestamp, player, -amount, null);
+            player.addCoins(-amount);
+            spent[0] = true;
+        });
+        return spent[0];
+    }
+    
+    /**
+     * Unlocks an achievement the player has but has not unlocked yet.
+     *
+     * @return whether anything changed
+     */
+    public boolean unlockAchievement(PlayerData player, String achievement) {
+        boolean[] unlocked = new boolean[1];
+        mutate(player, timestamp -> {
+            if (!Achievements.exists(achievement) || player.hasAchievement(achievement)) return;
+            append(PlayerJournal.UNLOCK_ACHIEVEMENT, timestamp, player, 0, achievement);
+            unlocked[0] = player.unlockAchievement(achievement);
+        });
+        return unlocked[0];
+    }
+    
+    /**
+     * Applies a partial update. Each present field is journaled as its own
+     * record, and the player changes in one step.
+     *
+     * @throws IllegalArgumentException if the player's xp would not be below
+     *         what its level needs; nothing is journaled then
+     */
+    public void update(PlayerData player, PlayerUpdate update) {
+        mutate(player, timestamp -> {
+            // Checked under the player's lock, so the values it is checked against cannot change first
+            update.checkAgainst(player.getLevel(), player.getXp());
+            if (update.has(PlayerUpdate.NAME)) append(PlayerJournal.SET_NAME, timestamp, player, 0, update.getPlayerName());
+            if (update.has(PlayerUpdate.LEVEL)) append(PlayerJournal.SET_LEVEL, timestamp, player, update.getLevel(), null);
+            if (update.has(PlayerUpdate.XP)) append(PlayerJournal.SET_XP, timestamp, player, update.getXp(), null);
+            if (update.has(PlayerUpdate.COINS)) append(PlayerJournal.SET_COINS, timestamp, player, update.getCoins(), null);
+            if (update.has(PlayerUpdate.CURRENT_LEVEL)) append(PlayerJournal.SET_CURRENT_LEVEL, timestamp, player, update.getCurrentLevel(), null);
+            if (update.has(PlayerUpdate.COMPLETED_TASKS)) append(PlayerJournal.SET_COMPLETED_TASKS, timestamp, player, update.getCompletedTasks(), null);
+            for (String achievement : update.getUnlockedAchievements()) {
+                append(PlayerJournal.UNLOCK_ACHIEVEMENT, timestamp, player, 0, achievement);
+            }
+            player.applyUpdate(update);
+        });
+    }
+    
+    /**
+     * Waits until every mutation made by the calling thread is on disk.
+     */
+    public void flush() {
+        long[] seq = lastSequence.get();
+        if (seq[0] == 0) return;
+        try {
+            journal.awaitDurable(seq[0]);
+            seq[0] = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Player journal flush failed", e);
+        }
+    }
+    
+    /** Work done under a player's lock: journal records, then apply them. */
+    private interface Mutation {
+        void run(long timestamp) throws IOException;
+    }
+    
+    private void mutate(PlayerData player, byte type, int value, Runnable change) {
+        mutate(player, timestamp -> {
+            append(type, timestamp, player, value, null);
+            change.run();
+        });
+    }
+    
+    private void mutate(PlayerData player, Mutation mutation) {
+        snapshotLock.readLock().lock();
+        try {
+            synchronized (lockFor(player.getKey())) {
+                if (player.evicted) {
+                    // Evicted since the caller looked it up: bring this same instance back
+                    loadLocked(player.getKey());
+                }
+                mutation.run(System.currentTimeMillis());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Player journal append failed", e);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+        PlayerData.ChangeListener listener = observer;
+        if (listener != null) listener.playerChanged(player);
+        evictIfFull();
+    }
+    
+    private Object lockFor(long key) {
+        return playerLocks[(int) (key ^ (key >>> 32)) & (PLAYER_LOCK_STRIPES - 1)];
+    }
+    
+    private void append(byte type, long timestamp, PlayerData player, int value, String text) throws IOException {
+        lastSequence.get()[0] = journal.append(type, timestamp, player.getPlayerId(), value, text);
+    }
+    
+    /** An evicted player, weakly held so it can be reclaimed until it is collected. */
+    private static final class EvictedPlayer extends WeakReference<PlayerData> {
+        final long key;
+        
+        EvictedPlayer(PlayerData player, ReferenceQueue<PlayerData> queue) {
+            super(player, queue);
+            this.key = player.getKey();
+        }
+    }
+    
+    private PlayerData load(long key) {
+        if (!cold.contains(key) && !evicted.containsKey(key)) {
+            // Not cold either, unless a concurrent load just moved it into memory
+            return players.get(key);
+        }
+        long start = System.nanoTime();
+        snapshotLock.readLock().lock();
+        try {
+            synchronized (lockFor(key)) {
+                return loadLocked(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Loading cold player failed", e);
+        } finally {
+            snapshotLock.readLock().unlock();
+            long elapsed = System.nanoTime() - start;
+            loadNanos.add(elapsed);
+            maxLoadNanos.accumulate(elapsed);
+        }
+    }
+    
+    // Caller holds the snapshot read lock and the player's stripe
+    private PlayerData loadLocked(long key) throws IOException {
+        PlayerData player = players.get(key);
+        if (player != null) return player;
+        
+        EvictedPlayer reference = evicted.remove(key);
+        player = reference == null ? null : reference.get();
+        if (player == null) {
+            byte[] record = cold.get(key);
+            if (record == null) return null;
+            player = decode(record);
+        }
+        player.evicted = false;
+        // Into memory before out of the cold file, so a lookup never misses it in both
+        players.put(key, player);
+        cold.remove(key);
+        if (!recovering) leaderboard.attach(player);
+        loads.increment();
+        return player;
+    }
+    
+    private void evictIfFull() {
+        while (players.size() > maxHotPlayers) {
+            PlayerData victim = leastRecentlyUsedSample();
+            if (victim == null || !evict(victim)) return;
+        }
+    }
+    
+    private PlayerData leastRecentlyUsedSample() {
+        Random random = ThreadLocalRandom.current();
+        PlayerData oldest = null;
+        for (int i = 0; i < EVICTION_SAMPLES; i++) {
+            PlayerData candidate = players.sample(random);
+            if (candidate != null && (oldest == null || candidate.lastAccess < oldest.lastAccess)) {
+                oldest = candidate;
+            }
+        }
+        return oldest;
+    }
+    
+    private boolean evict(PlayerData player) {
+        long key = player.getKey();
+        snapshotLock.readLock().lock();
+        try {
+            synchronized (lockFor(key)) {
+                if (player.evicted || players.get(key) != player) return true; // lost a race, nothing to do
+                cold.put(key, encode(player));
+                players.remove(key);
+                if (!recovering) leaderboard.detach(player);
+                player.evicted = true;
+                
+                for (Reference<?> cleared; (cleared = collected.poll()) != null; ) {
+                    evicted.remove(((EvictedPlayer) cleared).key, cleared);
+                }
+                evicted.put(key, new EvictedPlayer(player, collected));
+                evictions.increment();
+                return true;
+            }
+        } catch (IOException e) {
+            System.err.println("Player eviction failed: " + e.getMessage());
+            return false;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Writes a snapshot of every player and drops the log it supersedes.
+     */
+    public void snapshot() throws IOException {
+        long generation;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream(Math.max(1024, players.size() * 64));
+        
+        snapshotLock.writeLock().lock();
+        try {
+            generation = journal.rotate();
+            lastSnapshotSequence = journal.lastSequence();
+            DataOutputStream out = new DataOutputStream(captured);
+            out.writeInt(players.size() + cold.size());
+            players.forEach(player -> {
+                try {
+                    player.writeTo(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            // Cold records are already in the snapshot format
+            cold.forEach((key, record) -> out.write(record));
+            out.flush();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        
+        // The slow part, writing and syncing the file, happens without blocking mutations
+        Path target = snapshotPath(generation);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            captured.writeTo(out);
+            out.flush();
+            file.write(intBytes((int) crc.getValue()));
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        lastSnapshotTime = System.currentTimeMillis();
+        
+        for (long older : PlayerJournal.listGenerations(directory, "snapshot-", ".bin")) {
+            if (older < generation) Files.deleteIfExists(snapshotPath(older));
+        }
+        journal.deleteLogsBefore(generation);
+    }
+    
+    private void snapshotIfDue() {
+        try {
+            boolean changed = journal.lastSequence() != lastSnapshotSequence;
+            boolean logFull = journal.currentLogSize() >= maxLogBytes;
+            boolean intervalElapsed = System.currentTimeMillis() - lastSnapshotTime >= snapshotIntervalMillis;
+            if (changed && (logFull || intervalElapsed)) {
+                long start = System.currentTimeMillis();
+                snapshot();
+                System.out.println("Player snapshot written: " + players.size() + " players in "
+                        + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Player snapshot failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads the newest snapshot and replays the log behind it.
+     *
+     * @return the log generation to keep appending to
+     */
+    private long recover() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        
+        long generation = 0;
+        List<Long> snapshots = PlayerJournal.listGenerations(directory, "snapshot-", ".bin");
+        if (!snapshots.isEmpty()) {
+            generation = snapshots.get(snapshots.size() - 1);
+            loadSnapshot(snapshotPath(generation));
+        }
+        int fromSnapshot = size();
+        
+        long records = PlayerJournal.replay(directory, generation, this::applyRecord);
+        replayedRecords = records;
+        List<Long> logs = PlayerJournal.listGenerations(directory, "wal-", ".log");
+        if (!logs.isEmpty()) {
+            generation = Math.max(generation, logs.get(logs.size() - 1));
+        }
+        
+        if (fromSnapshot > 0 || records > 0) {
+            System.out.println("Recovered " + size() + " players (" + fromSnapshot + " from snapshot, "
+                    + records + " log records, " + cold.size() + " kept on disk) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        return generation;
+    }
+    
+    private void loadSnapshot(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < 12) throw new IOException("Truncated snapshot " + path);
+        
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(bytes.length - 4);
+        if ((int) crc.getValue() != in.readInt()) throw new IOException("Corrupt snapshot " + path);
+        
+        in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unrecognised snapshot " + path);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            PlayerData player = PlayerData.readFrom(in);
+            if (players.size() < maxHotPlayers) {
+                players.put(player.getKey(), player);
+            } else {
+                cold.put(player.getKey(), encode(player));
+            }
+        }
+    }
+    
+    /** Ranks everything recovered, in memory or not, then follows the players in memory. */
+    private void rankRecoveredPlayers() throws IOException {
+        Leaderboard.Loader loader = leaderboard.loader();
+        players.forEach(loader::add);
+        cold.forEach((key, record) -> loader.add(decode(record)));
+        loader.finish();
+        players.forEach(leaderboard::attach);
+    }
+    
+    private static byte[] encode(PlayerData player) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+        player.writeTo(new DataOutputStream(record));
+        return record.toByteArray();
+    }
+    
+    private static PlayerData decode(byte[] record) throws IOException {
+        return PlayerData.readFrom(new DataInputStream(new ByteArrayInputStream(record)));
+    }
+    
+    private void applyRecord(byte type, long timestamp, String playerId, int value, String text) {
+        long key = PlayerIdGenerator.parse(playerId);
+        if (type == PlayerJournal.CREATE) {
+            PlayerData player = new PlayerData(playerId);
+            if (text != null) player.setPlayerName(text);
+            player.restoreTimestamps(timestamp, timestamp);
+            players.put(key, player);
+            evictIfFull();
+            return;
+        }
+        if (type == PlayerJournal.DELETE) {
+            players.remove(key);
+            try {
+                cold.remove(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+        
+        PlayerData player = get(key);
+        if (player == null) return;
+        switch (type) {
+            case PlayerJournal.ADD_XP: player.addXP(value); break;
+            case PlayerJournal.ADD_COINS: player.addCoins(value); break;
+            case PlayerJournal.INCREMENT_LEVEL: player.incrementLevel(); break;
+            case PlayerJournal.COMPLETE_TASK: player.completeTask(); break;
+            case PlayerJournal.SET_NAME: player.setPlayerName(text); break;
+            case PlayerJournal.SET_LEVEL: player.setLevel(value); break;
+            case PlayerJournal.SET_XP: player.setXp(value); break;
+            case PlayerJournal.SET_COINS: player.setCoins(value); break;
+            case PlayerJournal.SET_CURRENT_LEVEL: player.setCurrentLevel(value); break;
+            case PlayerJournal.SET_COMPLETED_TASKS: player.setCompletedTasks(value); break;
+            case PlayerJournal.UNLOCK_ACHIEVEMENT: player.unlockAchievement(text); break;
+            default: return;
+        }
+        player.restoreLastPlayed(timestamp);
+    }
+    
+    private Path snapshotPath(long generation) {
+        return directory.resolve(String.format("snapshot-%010d.bin", generation));
+    }
+    
+    private static byte[] intBytes(int value) {
+        return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+    }
+    
+    /**
+     * Stops background snapshots, writes a final snapshot so the next start
+     * has nothing to replay, and closes the journal and the cold file.
+     */
+    @Override
+    public void close() throws IOException {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (journal.lastSequence() != lastSnapshotSequence) {
+                snapshot();
+            }
+        } finally {
+            journal.close();
+            cold.close();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package swiftfood;
+
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * PlayerStreams fans player changes out to server-sent event subscribers.
+ *
+ * A change never encodes or writes anything itself: it marks each of the
+ * player's subscriptions dirty and, only if it was clean, tells the
+ * subscription's sink (the connection) once. The connection asks for the next
+ * event when it has nothing left to write, and gets the difference between
+ * the state it last sent and the current one. A burst of changes therefore
+ * becomes one event, and a slow subscriber holds at most one event in its
+ * output while later changes fold into the next.
+ */
+public class PlayerStreams implements PlayerData.ChangeListener {
+    private static final byte[] RETRY = ascii("retry: ");
+    private static final byte[] SNAPSHOT = ascii("\n\nevent: snapshot\ndata: ");
+    private static final byte[] DELTA = ascii("event: delta\ndata: ");
+    private static final byte[] DELETED = ascii("event: deleted\ndata: {}\n\n");
+    private static final byte[] END = ascii("\n\n");
+    private static final byte[] HEARTBEAT = ascii(":\n\n");
+    
+    private final int maxPerPlayer;
+    private final ConcurrentMap<Long, Subscription[]> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    
+    /** Where a subscription reports that it has an event to send; called on the changing thread. */
+    public interface Sink {
+        void streamReady(Subscription subscription);
+    }
+    
+    public PlayerStreams(int maxPerPlayer) {
+        this.maxPerPlayer = maxPerPlayer;
+    }
+    
+    /**
+     * Subscribes to a player's changes from its current state on.
+     *
+     * @return the subscription, or null if the player already has as many streams as allowed
+     */
+    public Subscription subscribe(PlayerData player) {
+        Subscription subscription = new Subscription(player);
+        boolean[] added = new boolean[1];
+        subscriptions.compute(player.getKey(), (key, current) -> {
+            if (current == null) {
+                added[0] = true;
+                return new Subscription[] { subscription };
+            }
+            if (current.length >= maxPerPlayer) return current;
+            Subscription[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = subscription;
+            added[0] = true;
+            return next;
+        });
+        if (!added[0]) return null;
+        open.incrementAndGet();
+        // Read only once registered, so any later change is seen as pending
+        subscription.opened = player.getState();
+        subscription.sent = subscription.opened;
+        return subscription;
+    }
+    
+    @Override
+    public void playerChanged(PlayerData player) {
+        Subscription[] current = subscriptions.get(player.getKey());
+        if (current == null) return;
+        for (Subscription subscription : current) {
+            subscription.changed();
+        }
+    }
+    
+    /** Ends every stream of a deleted player with a final "deleted" event. */
+    public void playerDeleted(PlayerData player) {
+        Subscription[] current = subscriptions.remove(player.getKey());
+        if (current == null) return;
+        for (Subscription subscription : current) {
+            subscription.deleted = true;
+            subscription.changed();
+        }
+    }
+    
+    public int getOpenCount() { return open.get(); }
+    
+    /**
+     * The opening of a stream: the reconnect delay EventSource should use,
+     * then the whole player as a "snapshot" event.
+     */
+    static ByteBuffer snapshotEvent(PlayerData player, PlayerData.State state, long retryMillis) {
+        JsonWriter json = player.writeJson(JsonWriter.local(), state);
+        byte[] retry = ascii(Long.toString(retryMillis));
+        ByteBuffer event = ByteBuffer.allocate(RETRY.length + retry.length + SNAPSHOT.length + json.size() + END.length);
+        event.put(RETRY).put(retry).put(SNAPSHOT).put(json.buffer(), 0, json.size()).put(END);
+        return event.flip();
+    }
+    
+    /** A comment line that keeps an idle stream's connection from looking dead to proxies. */
+    static ByteBuffer heartbeat() {
+        return ByteBuffer.wrap(HEARTBEAT);
+    }
+    
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    /**
+     * One stream of a player's changes. The flag and sink are shared with
+     * changing threads; the last sent state belongs to the connection.
+     */
+    public final class Subscription {
+        private final PlayerData player;
+        private PlayerData.State opened;
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Sink sink;
+        private volatile boolean deleted;
+        private PlayerData.State sent;
+        private boolean finished;
+        
+        private Subscription(PlayerData player) {
+            this.player = player;
+        }
+        
+        /** The stream's opening bytes, describing the state deltas will start from. */
+        public ByteBuffer open(long retryMillis) {
+            return snapshotEvent(player, opened, retryMillis);
+        }
+        
+        /** Starts reporting changes to the sink, including any made since the subscription was taken. */
+        public void attach(Sink sink) {
+            this.sink = sink;
+            if (pending.get()) sink.streamReady(this);
+        }
+        
+        private void changed() {
+            if (!pending.compareAndSet(false, true)) return;
+            Sink current = sink;
+            if (current != null) current.streamReady(this);
+        }
+        
+        /**
+         * The event covering every change since the last one, or null if
+         * nothing visible changed. The flag is cleared before the state is
+         * read, so a change racing with this call is reported again.
+         */
+        public ByteBuffer nextEvent() {
+            if (finished || !pending.getAndSet(false)) return null;
+            if (deleted) {
+                finished = true;
+                return ByteBuffer.wrap(DELETED);
+            }
+            PlayerData.State current = player.getState();
+            if (current == sent) return null;
+            JsonWriter json = JsonWriter.local();
+            boolean changed = player.writeDelta(json, sent, current);
+            sent = current;
+            if (!changed) return null;
+            ByteBuffer event = ByteBuffer.allocate(DELTA.length + json.size() + END.length);
+            event.put(DELTA).put(json.buffer(), 0, json.size()).put(END);
+            return event.flip();
+        }
+        
+        /** Whether the last event ended the stream, so the connection should close once it is written. */
+        public boolean isFinished() {
+            return finished;
+        }
+        
+        public void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            sink = null;
+            subscriptions.computeIfPresent(player.getKey(), (key, current) -> {
+                int index = Arrays.asList(current).indexOf(this);
+                if (index < 0) return current;
+                if (current.length == 1) return null;
+                Subscription[] next = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, next, 0, index);
+                System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+                return next;
+            });
+            open.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package swiftfood;
+
+import java.util.*;
+
+/**
+ * PlayerUpdate is a partial change to a player, parsed from a request body.
+ * Only the fields present in the JSON are set; everything else is left as it is.
+ */
+public class PlayerUpdate {
+    public static final int NAME = 1;
+    public static final int LEVEL = 1 << 1;
+    public static final int XP = 1 << 2;
+    public static final int COINS = 1 << 3;
+    public static final int CURRENT_LEVEL = 1 << 4;
+    public static final int COMPLETED_TASKS = 1 << 5;
+    
+    static final int MAX_NAME_LENGTH = 64;
+    // The most XP any level can hold: one short of what MAX_LEVEL needs
+    private static final int MAX_XP = PlayerData.MAX_LEVEL * PlayerData.XP_PER_LEVEL - 1;
+    
+    private static final String[] FIELDS = {
+        "playerName", "level", "xp", "coins", "currentLevel", "completedTasks", "achievements",
+        // Read-only fields a client may echo back from GET; they are ignored
+        "playerId", "createdAt", "lastPlayed"
+    };
+    
+    private int fields;
+    private String playerName;
+    private int level;
+    private int xp;
+    private int coins;
+    private int currentLevel;
+    private int completedTasks;
+    private List<String> unlockedAchievements = Collections.emptyList();
+    
+    /**
+     * Parses a JSON object of player fields.
+     *
+     * @throws IllegalArgumentException if the body is malformed, names an
+     *         unknown field or holds an out-of-range value
+     */
+    public static PlayerUpdate parse(CharSequence body) {
+        PlayerUpdate update = new PlayerUpdate();
+        JsonReader json = JsonReader.local(body);
+        json.beginObject();
+        while (json.hasNext()) {
+            int field = json.nextName(FIELDS);
+            switch (field) {
+                case 0: update.setPlayerName(json.nextString()); break;
+                case 1: update.level = between(json.nextInt(), 1, PlayerData.MAX_LEVEL, "level"); update.fields |= LEVEL; break;
+                case 2: update.xp = between(json.nextInt(), 0, MAX_XP, "xp"); update.fields |= XP; break;
+                case 3: update.coins = between(json.nextInt(), 0, PlayerData.MAX_COINS, "coins"); update.fields |= COINS; break;
+                case 4: update.currentLevel = between(json.nextInt(), 1, PlayerData.MAX_LEVEL, "currentLevel"); update.fields |= CURRENT_LEVEL; break;
+                case 5: update.completedTasks = between(json.nextInt(), 0, Integer.MAX_VALUE, "completedTasks"); update.fields |= COMPLETED_TASKS; break;
+                case 6: update.readAchievements(json); break;
+                case 7: case 8: case 9: json.skipValue(); break;
+                default: throw new IllegalArgumentException("Unknown player field");
+            }
+        }
+        json.endObject();
+        json.endDocument();
+        return update;
+    }
+    
+    /** Parses the optional body of a create request, which may only name the player. */
+    public static String parsePlayerName(CharSequence body) {
+        if (body == null || body.toString().isBlank()) return null;
+        PlayerUpdate update = parse(body);
+        if ((update.fields & ~NAME) != 0 || !update.unlockedAchievements.isEmpty()) {
+            throw new IllegalArgumentException("Only playerName can be set when creating a player");
+        }
+        return update.playerName;
+    }
+    
+    private void setPlayerName(String name) {
+        String trimmed = name.trim();
+        if (trimmed.isEmpty() || trimmed.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("playerName must be 1 to " + MAX_NAME_LENGTH + " characters");
+        }
+        playerName = trimmed;
+        fields |= NAME;
+    }
+    
+    // Achievements can only be unlocked: snapshots record unlocked names, so false means "no change"
+    private void readAchievements(JsonReader json) {
+        unlockedAchievements = new ArrayList<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.nextBoolean()) unlockedAchievements.add(name);
+        }
+        json.endObject();
+    }
+    
+    private static int between(int value, int min, int max, String field) {
+        if (value < min || value > max) throw new IllegalArgumentException(field + " must be between " + min + " and " + max);
+        return value;
+    }
+    
+    /**
+     * Checks that the player's XP would stay below what its level needs once
+     * this update is applied, taking whichever of the two it does not set
+     * from the player's current values.
+     *
+     * @throws IllegalArgumentException if it would not
+     */
+    public void checkAgainst(int currentLevel, int currentXp) {
+        if (!has(LEVEL) && !has(XP)) return;
+        int newLevel = has(LEVEL) ? level : currentLevel;
+        int newXp = has(XP) ? xp : currentXp;
+        if (newXp >= newLevel * PlayerData.XP_PER_LEVEL) {
+            throw new IllegalArgumentException("xp must be below level * " + PlayerData.XP_PER_LEVEL);
+        }
+    }
+    
+    public boolean has(int field) { return (fields & field) != 0; }
+    public boolean isEmpty() { return fields == 0 && unlockedAchievements.isEmpty(); }
+    
+    // Getters
+    public String getPlayerName() { return playerName; }
+    public int getLevel() { return level; }
+    public int getXp() { return xp; }
+    public int getCoins() { return coins; }
+    public int getCurrentLevel() { return currentLevel; }
+    public int getCompletedTasks() { return completedTasks; }
+    public List<String> getUnlockedAchievements() { return unlockedAchievements; }
+}
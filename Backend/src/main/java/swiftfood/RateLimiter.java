@@ -0,0 +1,90 @@
+package swiftfood;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * RateLimiter keeps a token bucket per key, such as a client address or a
+ * player ID. Each bucket is one AtomicLong holding the time at which it will
+ * be full again (the GCRA form of a token bucket), so a check is a read and
+ * a compareAndSet with no locks.
+ *
+ * A bucket that has refilled is indistinguishable from a new one, so full
+ * buckets are dropped whenever the key count reaches its bound. If every
+ * bucket is still in use, new keys are admitted without being tracked
+ * rather than letting the map grow.
+ */
+public class RateLimiter<K> {
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final long intervalNanos; // time to earn back one token
+    private final long burstNanos; // time to refill an empty bucket
+    private final int maxKeys;
+    private final ConcurrentMap<K, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL_NANOS);
+    
+    /**
+     * @param perSecond tokens earned per second
+     * @param burst     bucket size: requests allowed at once after a quiet spell
+     * @param maxKeys   most keys tracked at a time
+     */
+    public RateLimiter(double perSecond, int burst, int maxKeys) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1e9 / perSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+    
+    /**
+     * Takes a token from the key's bucket.
+     *
+     * @return 0 when the request is admitted, otherwise the nanoseconds until
+     *         a token will be available
+     */
+    public long tryAcquire(K key) {
+        return tryAcquire(key, 1);
+    }
+    
+    /**
+     * Takes several tokens from the key's bucket at once, or none. More
+     * tokens than the burst are never granted.
+     *
+     * @return 0 when the request is admitted, otherwise the nanoseconds until
+     *         enough tokens will be available
+     */
+    public long tryAcquire(K key, int tokens) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys && !sweep(now)) return 0;
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos * tokens;
+            if (next - now > burstNanos) return next - now - burstNanos;
+            if (bucket.compareAndSet(fullAt, next)) return 0;
+        }
+    }
+    
+    public int size() {
+        return buckets.size();
+    }
+    
+    /**
+     * Drops full buckets, at most once per interval so a flood of new keys
+     * cannot turn every check into a scan.
+     *
+     * @return true when there is room for another key
+     */
+    private boolean sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            // A request racing the removal may spend its token on the dropped bucket; the key then restarts full
+            buckets.values().removeIf(bucket -> bucket.get() <= now);
+        }
+        return buckets.size() < maxKeys;
+    }
+}
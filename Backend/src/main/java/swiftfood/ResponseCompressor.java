@@ -0,0 +1,184 @@
+package swiftfood;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * ResponseCompressor negotiates a content coding from Accept-Encoding and
+ * compresses response bodies with gzip or deflate. Bodies below a size
+ * threshold, bodies of types that do not compress and bodies that would not
+ * shrink are sent as they are.
+ *
+ * Deflaters hold native memory and are costly to create, so they are pooled
+ * and reset between uses.
+ */
+public class ResponseCompressor {
+    /** The content codings the server can produce. */
+    public enum Encoding {
+        IDENTITY(null), GZIP("gzip"), DEFLATE("deflate");
+        
+        private final String token;
+        
+        Encoding(String token) {
+            this.token = token;
+        }
+        
+        /** The Content-Encoding value, or null for identity. */
+        public String token() { return token; }
+    }
+    
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    private static final int MAX_POOLED_DEFLATERS = 32;
+    
+    // Fixed gzip member header: magic, deflate method, no flags, no mtime, unknown OS
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+    private static final int GZIP_TRAILER_SIZE = 8;
+    
+    private final int minSize;
+    private final int level;
+    // Raw deflaters for gzip (framed here) and zlib-wrapped ones for deflate
+    private final BlockingQueue<Deflater> rawPool = new ArrayBlockingQueue<>(MAX_POOLED_DEFLATERS);
+    private final BlockingQueue<Deflater> zlibPool = new ArrayBlockingQueue<>(MAX_POOLED_DEFLATERS);
+    
+    public ResponseCompressor(int minSize, int level) {
+        this.minSize = minSize;
+        this.level = level;
+    }
+    
+    /**
+     * Picks the coding to use for a client's Accept-Encoding header. Higher
+     * q-values win; on a tie gzip is preferred over deflate, whose framing
+     * some clients have historically got wrong.
+     */
+    public static Encoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) return Encoding.IDENTITY;
+        double gzip = -1, deflate = -1, any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            int semicolon = part.indexOf(';');
+            String coding = (semicolon < 0 ? part : part.substring(0, semicolon)).trim();
+            double q = semicolon < 0 ? 1 : quality(part.substring(semicolon + 1));
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) gzip = q;
+            else if (coding.equalsIgnoreCase("deflate")) deflate = q;
+            else if (coding.equals("*")) any = q;
+        }
+        if (gzip < 0) gzip = any;
+        if (deflate < 0) deflate = any;
+        if (gzip > 0 && gzip >= deflate) return Encoding.GZIP;
+        if (deflate > 0) return Encoding.DEFLATE;
+        return Encoding.IDENTITY;
+    }
+    
+    // A malformed q-value makes the coding unacceptable rather than failing the request
+    private static double quality(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.length() > 2 && (p.charAt(0) == 'q' || p.charAt(0) == 'Q') && p.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(p.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+    
+    /**
+     * Compresses a response for the client when it is worth it. Responses
+     * whose coding was already negotiated, such as precompressed cached
+     * payloads, are returned unchanged.
+     */
+    public HttpResponse compress(HttpResponse response, HttpRequestParser request) {
+        if (response.getBodyLength() < minSize || !isCompressible(response.getContentType())
+                || response.getHeader("Content-Encoding") != null
+                || "Accept-Encoding".equals(response.getHeader("Vary"))) {
+            return response;
+        }
+        Encoding encoding = negotiate(request.header("Accept-Encoding"));
+        byte[] compressed = encoding == Encoding.IDENTITY ? null : compress(response.getBody(), encoding);
+        if (compressed == null) {
+            return response.addHeader("Vary", "Accept-Encoding");
+        }
+        return response.withBody(compressed)
+                .addHeader("Content-Encoding", encoding.token())
+                .addHeader("Vary", "Accept-Encoding");
+    }
+    
+    /**
+     * Compresses bytes with a pooled deflater at this compressor's level.
+     *
+     * @return the encoded bytes, or null when they would not be smaller
+     */
+    public byte[] compress(ByteBuffer data, Encoding encoding) {
+        boolean gzip = encoding == Encoding.GZIP;
+        BlockingQueue<Deflater> pool = gzip ? rawPool : zlibPool;
+        Deflater deflater = pool.poll();
+        if (deflater == null) deflater = new Deflater(level, gzip);
+        try {
+            return encode(deflater, data, gzip);
+        } finally {
+            deflater.reset();
+            if (!pool.offer(deflater)) deflater.end();
+        }
+    }
+    
+    /**
+     * Compresses bytes once with a throwaway deflater, for payloads that are
+     * cached and served many times.
+     *
+     * @return the encoded bytes, or null when they would not be smaller
+     */
+    public static byte[] compressOnce(ByteBuffer data, Encoding encoding, int level) {
+        boolean gzip = encoding == Encoding.GZIP;
+        Deflater deflater = new Deflater(level, gzip);
+        try {
+            return encode(deflater, data, gzip);
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    // Output is capped at the input size, so incompressible data fails fast instead of growing
+    private static byte[] encode(Deflater deflater, ByteBuffer data, boolean gzip) {
+        int size = data.remaining();
+        int header = gzip ? GZIP_HEADER.length : 0;
+        int trailer = gzip ? GZIP_TRAILER_SIZE : 0;
+        byte[] out = new byte[size];
+        if (header + trailer >= out.length) return null;
+        System.arraycopy(GZIP_HEADER, 0, out, 0, header);
+        
+        deflater.setInput(data.duplicate());
+        deflater.finish();
+        int length = header;
+        int limit = out.length - trailer;
+        while (!deflater.finished()) {
+            if (length == limit) return null;
+            length += deflater.deflate(out, length, limit - length);
+        }
+        
+        if (gzip) {
+            CRC32 crc = new CRC32();
+            crc.update(data.duplicate());
+            length = putIntLE(out, length, (int) crc.getValue());
+            length = putIntLE(out, length, size);
+        }
+        return Arrays.copyOf(out, length);
+    }
+    
+    private static int putIntLE(byte[] out, int offset, int value) {
+        out[offset] = (byte) value;
+        out[offset + 1] = (byte) (value >>> 8);
+        out[offset + 2] = (byte) (value >>> 16);
+        out[offset + 3] = (byte) (value >>> 24);
+        return offset + 4;
+    }
+    
+    private static boolean isCompressible(String contentType) {
+        // Events are written one at a time as they happen, so a stream is never compressed as a whole
+        if (contentType == null || contentType.startsWith("text/event-stream")) return false;
+        return contentType.startsWith("application/json") || contentType.startsWith("text/")
+                || contentType.startsWith("application/javascript");
+    }
+}
@@ -0,0 +1,132 @@
+package swiftfood;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Router maps request methods and paths to handlers. Patterns such as
+ * "/api/player/{playerId}/complete-task" are split into segments once, when
+ * they are registered, and kept in a trie. Matching walks the request path
+ * bytes in place: literal segments are compared against the buffer and
+ * "{name}" segments are captured as offsets, so nothing is copied.
+ *
+ * The query string is not part of the match; handlers read it from the
+ * request. Literal segments take precedence over parameters.
+ */
+public class Router {
+    /** Handles one request whose path matched the handler's pattern. */
+    public interface Handler {
+        HttpResponse handle(HttpRequestParser request, String body) throws Exception;
+    }
+    
+    /** A registered path pattern and its handler for each method. */
+    public static final class Route {
+        private final String pattern;
+        private final Map<String, Handler> handlers = new HashMap<>();
+        
+        private Route(String pattern) {
+            this.pattern = pattern;
+        }
+        
+        public String getPattern() { return pattern; }
+        
+        /** The handler for the method, or null if the route does not accept it. */
+        public Handler handler(String method) {
+            return handlers.get(method);
+        }
+    }
+    
+    private static final class Node {
+        byte[][] literals = new byte[0][];
+        Node[] literalChildren = new Node[0];
+        Node paramChild;
+        Route route;
+    }
+    
+    private final Node root = new Node();
+    
+    public Router get(String pattern, Handler handler) { return add("GET", pattern, handler); }
+    public Router post(String pattern, Handler handler) { return add("POST", pattern, handler); }
+    public Router put(String pattern, Handler handler) { return add("PUT", pattern, handler); }
+    public Router delete(String pattern, Handler handler) { return add("DELETE", pattern, handler); }
+    
+    /**
+     * Registers a handler. Path parameters are numbered in the order they
+     * appear in the pattern, which is how handlers read them back.
+     */
+    public Router add(String method, String pattern, Handler handler) {
+        if (!pattern.startsWith("/")) throw new IllegalArgumentException("Route must start with '/': " + pattern);
+        Node node = root;
+        int params = 0;
+        for (String segment : pattern.substring(1).split("/", -1)) {
+            if (segment.isEmpty()) throw new IllegalArgumentException("Empty segment in route: " + pattern);
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (++params > HttpRequestParser.MAX_PATH_PARAMS) {
+                    throw new IllegalArgumentException("Too many parameters in route: " + pattern);
+                }
+                if (node.paramChild == null) node.paramChild = new Node();
+                node = node.paramChild;
+            } else {
+                node = literalChild(node, segment);
+            }
+        }
+        if (node.route == null) node.route = new Route(pattern);
+        if (node.route.handlers.putIfAbsent(method, handler) != null) {
+            throw new IllegalArgumentException("Duplicate route: " + method + " " + pattern);
+        }
+        return this;
+    }
+    
+    private static Node literalChild(Node node, String text) {
+        byte[] segment = text.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < node.literals.length; i++) {
+            if (Arrays.equals(node.literals[i], segment)) return node.literalChildren[i];
+        }
+        Node child = new Node();
+        int n = node.literals.length;
+        node.literals = Arrays.copyOf(node.literals, n + 1);
+        node.literalChildren = Arrays.copyOf(node.literalChildren, n + 1);
+        node.literals[n] = segment;
+        node.literalChildren[n] = child;
+        return child;
+    }
+    
+    /**
+     * Finds the route for the request's path and records its path parameters
+     * on the request.
+     *
+     * @return the route, or null when no pattern matches the path
+     */
+    public Route match(HttpRequestParser request) {
+        request.clearPathParams();
+        byte[] path = request.pathBuffer();
+        int from = request.pathOffset();
+        int to = from + request.pathLength();
+        if (from == to || path[from] != '/') return null;
+        return match(root, request, path, from + 1, to, 0);
+    }
+    
+    private static Route match(Node node, HttpRequestParser request, byte[] path, int start, int to, int param) {
+        if (start > to) return node.route;
+        
+        // Literals are compared in place; only a parameter needs the segment's end
+        next:
+        for (int i = 0; i < node.literals.length; i++) {
+            byte[] literal = node.literals[i];
+            int end = start + literal.length;
+            if (end > to || (end < to && path[end] != '/')) continue;
+            for (int j = 0; j < literal.length; j++) {
+                if (path[start + j] != literal[j]) continue next;
+            }
+            Route route = match(node.literalChildren[i], request, path, end + 1, to, param);
+            if (route != null) return route;
+        }
+        if (node.paramChild == null) return null;
+        int end = start;
+        while (end < to && path[end] != '/') end++;
+        if (end == start) return null;
+        Route route = match(node.paramChild, request, path, end + 1, to, param + 1);
+        if (route != null) request.setPathParam(param, start, end);
+        return route;
+    }
+}
@@ -0,0 +1,107 @@
+package swiftfood;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * ServerMetrics collects request, connection and traffic counters for both
+ * connection engines. Everything on the request path is a LongAdder or a
+ * {@link LatencyHistogram}, so recording never blocks; totals are only
+ * summed when the metrics are scraped.
+ */
+public class ServerMetrics {
+    /** Why a request was turned away before it reached a handler. */
+    public enum Rejection {
+        ADDRESS_RATE_LIMIT, PLAYER_RATE_LIMIT, OVERLOADED;
+        
+        final String label = name().toLowerCase();
+    }
+    
+    // method -> route pattern -> latency; both keys come from fixed sets
+    private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> latencies = new ConcurrentHashMap<>();
+    private final LongAdder[] responsesByClass = new LongAdder[6];
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder[] rejections = new LongAdder[Rejection.values().length];
+    
+    public ServerMetrics() {
+        for (int i = 0; i < responsesByClass.length; i++) {
+            responsesByClass[i] = new LongAdder();
+        }
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+    
+    public void recordRequest(String method, String route, int status, long nanos) {
+        ConcurrentMap<String, LatencyHistogram> byRoute = latencies.get(method);
+        if (byRoute == null) byRoute = latencies.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+        LatencyHistogram histogram = byRoute.get(route);
+        if (histogram == null) histogram = byRoute.computeIfAbsent(route, r -> new LatencyHistogram());
+        histogram.record(nanos);
+        responsesByClass[Math.min(Math.max(status / 100, 0), 5)].increment();
+    }
+    
+    public void bytesReceived(long count) { bytesReceived.add(count); }
+    public void bytesSent(long count) { bytesSent.add(count); }
+    public void connectionOpened() { connectionsOpened.increment(); }
+    public void connectionClosed() { connectionsClosed.increment(); }
+    public void rejected(Rejection reason) { rejections[reason.ordinal()].increment(); }
+    
+    /** Writes this object's metrics in the Prometheus text exposition format. */
+    public void writePrometheus(StringBuilder out) {
+        header(out, "swiftfood_http_request_duration_seconds", "histogram", "Time to handle a request, by route.");
+        for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> method : new TreeMap<>(latencies).entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> route : new TreeMap<>(method.getValue()).entrySet()) {
+                String labels = "method=\"" + method.getKey() + "\",route=\"" + route.getKey() + "\"";
+                route.getValue().writePrometheus(out, "swiftfood_http_request_duration_seconds", labels);
+            }
+        }
+        
+        header(out, "swiftfood_http_responses_total", "counter", "Responses sent, by status class.");
+        for (int i = 1; i < responsesByClass.length; i++) {
+            out.append("swiftfood_http_responses_total{status=\"").append(i).append("xx\"} ")
+                    .append(responsesByClass[i].sum()).append('\n');
+        }
+        
+        header(out, "swiftfood_http_rejected_total", "counter", "Requests turned away by rate limits or load shedding.");
+        for (Rejection reason : Rejection.values()) {
+            out.append("swiftfood_http_rejected_total{reason=\"").append(reason.label).append("\"} ")
+                    .append(rejections[reason.ordinal()].sum()).append('\n');
+        }
+        
+        long opened = connectionsOpened.sum();
+        counter(out, "swiftfood_http_connections_total", "Connections accepted.", opened);
+        gauge(out, "swiftfood_http_connections_open", "Connections currently open.", opened - connectionsClosed.sum());
+        counter(out, "swiftfood_http_received_bytes_total", "Bytes read from clients.", bytesReceived.sum());
+        counter(out, "swiftfood_http_sent_bytes_total", "Bytes written to clients.", bytesSent.sum());
+    }
+    
+    static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+    
+    static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+    
+    static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+    
+    static void counter(StringBuilder out, String name, String help, double value) {
+        header(out, name, "counter", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+    
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+}
@@ -0,0 +1,162 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * StaticFiles serves the frontend from a directory on disk, so the game and
+ * its API share one origin. Each file is loaded once into a
+ * {@link CachedPayload} with its gzip and deflate variants built up front;
+ * large files are memory-mapped so their pages go from the page cache to the
+ * socket without a copy on the heap. ETag and Last-Modified let browsers
+ * revalidate with a 304.
+ *
+ * Files are checked for changes on disk at most once every few seconds.
+ */
+public class StaticFiles {
+    private static final long CHECK_INTERVAL_MS = 2_000;
+    // Below this a mapping costs more than it saves: a whole page and a syscall per file
+    private static final long MAP_THRESHOLD = 16 * 1024;
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "js", "application/javascript; charset=utf-8",
+            "json", "application/json",
+            "svg", "image/svg+xml",
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "ico", "image/x-icon",
+            "woff2", "font/woff2",
+            "txt", "text/plain; charset=utf-8");
+    
+    /** A loaded file and the validators it was loaded with. */
+    private static final class Asset {
+        final CachedPayload payload;
+        final long lastModified; // whole seconds, as HTTP dates carry
+        final long size;
+        final String lastModifiedHeader;
+        volatile long checkedAt;
+        
+        Asset(CachedPayload payload, long lastModified, long size) {
+            this.payload = payload;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.lastModifiedHeader = HTTP_DATE.format(Instant.ofEpochSecond(lastModified));
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+    
+    private final Path root;
+    private final int compressMinSize;
+    private final long maxAgeSeconds;
+    private final ConcurrentMap<String, Asset> assets = new ConcurrentHashMap<>();
+    
+    public StaticFiles(Path root, int compressMinSize, long maxAgeSeconds) {
+        this.root = root.toAbsolutePath().normalize();
+        this.compressMinSize = compressMinSize;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+    
+    public Path getRoot() { return root; }
+    
+    /**
+     * Serves the file the request path names, "/" meaning index.html.
+     *
+     * @return the response, or null when the path names no file served here
+     */
+    public HttpResponse serve(HttpRequestParser request) throws IOException {
+        String name = fileName(request.path());
+        if (name == null) return null;
+        String contentType = CONTENT_TYPES.get(name.substring(name.lastIndexOf('.') + 1));
+        if (contentType == null) return null;
+        Asset asset = load(name, contentType);
+        if (asset == null) return null;
+        
+        // HTML names every other asset, so it is always revalidated; the rest may be cached for long
+        String cacheControl = contentType.startsWith("text/html") ? "no-cache" : "public, max-age=" + maxAgeSeconds;
+        ResponseCompressor.Encoding encoding = ResponseCompressor.negotiate(request.header("Accept-Encoding"));
+        HttpResponse response = isNotModified(request, asset)
+                ? HttpResponse.notModified(asset.payload, encoding)
+                : HttpResponse.cached(asset.payload, encoding);
+        return response.addHeader("Last-Modified", asset.lastModifiedHeader).addHeader("Cache-Control", cacheControl);
+    }
+    
+    // If-None-Match wins over If-Modified-Since when both are sent (RFC 7232, section 6)
+    private static boolean isNotModified(HttpRequestParser request, Asset asset) {
+        String ifNoneMatch = request.header("If-None-Match");
+        if (ifNoneMatch != null) return asset.payload.matches(ifNoneMatch);
+        String ifModifiedSince = request.header("If-Modified-Since");
+        if (ifModifiedSince == null) return false;
+        try {
+            return ZonedDateTime.parse(ifModifiedSince.trim(), HTTP_DATE).toEpochSecond() >= asset.lastModified;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Maps a request path to a file name below the root, or null when it is
+     * not a plain relative name. Only letters, digits, '.', '-', '_' and
+     * single '/' separators are allowed, which rules out escapes, encoded
+     * characters and dot segments before the file system is ever touched.
+     */
+    private static String fileName(String path) {
+        if (path.equals("/")) return "index.html";
+        if (path.length() < 2 || path.charAt(0) != '/') return null;
+        char previous = '/';
+        for (int i = 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '_' || c == '/';
+            if (!allowed) return null;
+            if ((c == '/' || c == '.') && previous == '/') return null;
+            previous = c;
+        }
+        if (previous == '/') return null;
+        return path.substring(1);
+    }
+    
+    private Asset load(String name, String contentType) throws IOException {
+        Asset asset = assets.get(name);
+        long now = System.currentTimeMillis();
+        if (asset != null && now - asset.checkedAt < CHECK_INTERVAL_MS) return asset;
+        
+        Path file = root.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            if (asset != null) assets.remove(name, asset);
+            return null;
+        }
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000;
+        long size = Files.size(file);
+        if (asset != null && asset.lastModified == lastModified && asset.size == size) {
+            asset.checkedAt = now;
+            return asset;
+        }
+        
+        // Changed or not loaded yet; racing loaders read the same file, so the last one wins harmlessly
+        Asset loaded = new Asset(new CachedPayload(read(file, size), contentType, compressMinSize), lastModified, size);
+        assets.put(name, loaded);
+        return loaded;
+    }
+    
+    private static ByteBuffer read(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (size >= MAP_THRESHOLD) {
+                // The mapping outlives the channel; deploys replace files rather than rewrite them in place
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+            return buffer.flip();
+        }
+    }
+}
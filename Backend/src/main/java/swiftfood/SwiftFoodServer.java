@@ -0,0 +1,860 @@
+package swiftfood;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * SwiftFood Backend Server
+ * A simple Java HTTP server for the SwiftFood game
+ */
+public class SwiftFoodServer {
+    private static final int PORT = Integer.getInteger("swiftfood.port", 8080);
+    private static final String SERVER_NAME = "SwiftFood Server v1.0";
+    
+    /**
+     * Connection engine selected at startup. BLOCKING serves one request per
+     * socket on the thread pool; NIO multiplexes keep-alive connections on a selector.
+     */
+    public enum EngineMode { BLOCKING, NIO }
+    
+    private final EngineMode engineMode;
+    private ServerSocketChannel serverChannel;
+    private NioConnectionEngine nioEngine;
+    private ThreadPoolExecutor threadPool;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private boolean running = false;
+    
+    // Player persistence settings (-Dswiftfood.dataDir=..., etc.)
+    private static final String DATA_DIR = System.getProperty("swiftfood.dataDir", "data");
+    private static final boolean JOURNAL_FSYNC = Boolean.parseBoolean(System.getProperty("swiftfood.journal.fsync", "true"));
+    private static final long SNAPSHOT_INTERVAL_MS = Long.getLong("swiftfood.snapshot.intervalSeconds", 300) * 1000;
+    private static final long SNAPSHOT_MAX_LOG_BYTES = Long.getLong("swiftfood.snapshot.maxLogBytes", 64L * 1024 * 1024);
+    private static final int MAX_HOT_PLAYERS = Integer.getInteger("swiftfood.cache.maxPlayers", 100_000);
+    
+    // Response compression (-Dswiftfood.compression.minBytes=..., level 1-9)
+    private static final int COMPRESSION_MIN_BYTES =
+            Integer.getInteger("swiftfood.compression.minBytes", ResponseCompressor.DEFAULT_MIN_SIZE);
+    private final ResponseCompressor compressor =
+            new ResponseCompressor(COMPRESSION_MIN_BYTES, Integer.getInteger("swiftfood.compression.level", 1));
+    
+    // Frontend assets served from the same origin (-Dswiftfood.staticDir=..., null when the directory is missing)
+    private static final String STATIC_DIR = System.getProperty("swiftfood.staticDir", "../Frontend");
+    private static final long STATIC_MAX_AGE_SECONDS = Long.getLong("swiftfood.static.maxAgeSeconds", 24 * 60 * 60);
+    private final StaticFiles staticFiles;
+    
+    // Admission control (-Dswiftfood.rateLimit.playerPerSecond=..., a rate of 0 turns that limit off)
+    private static final int WORK_QUEUE_CAPACITY = Integer.getInteger("swiftfood.workQueue.capacity", 1024);
+    private static final int RATE_LIMIT_MAX_KEYS = Integer.getInteger("swiftfood.rateLimit.maxKeys", 100_000);
+    // A batch is charged one player token per this many of that player's events
+    private static final int EVENTS_PER_TOKEN = 20;
+    private final RateLimiter<InetAddress> addressLimiter = rateLimiter("address", 200, 400);
+    private final RateLimiter<Long> playerLimiter = rateLimiter("player", 5, 20);
+    
+    // Player update streams (-Dswiftfood.streams.maxPerPlayer=...); blocking connections cannot be
+    // held open, so there EventSource is told to reconnect slowly and gets one snapshot per visit
+    private static final int STREAMS_PER_PLAYER = Integer.getInteger("swiftfood.streams.maxPerPlayer", 8);
+    private static final long STREAM_RETRY_MS = 5_000;
+    private static final long POLL_RETRY_MS = 30_000;
+    private final PlayerStreams playerStreams = new PlayerStreams(STREAMS_PER_PLAYER);
+    
+    // Game data storage: players are journaled to disk, levels come from a
+    // catalog file (-Dswiftfood.levelsFile=...) that is reloaded when it changes
+    private static final String LEVELS_FILE = System.getProperty("swiftfood.levelsFile", "levels.json");
+    private final PlayerStore players;
+    private final PlayerIdGenerator playerIds = new PlayerIdGenerator(Integer.getInteger("swiftfood.nodeId", 0));
+    private final LevelCatalogWatcher levelCatalog;
+    
+    // Rewards: XP comes from the completed task or level, coins are flat
+    private static final int TASK_COINS = 10;
+    private static final int LEVEL_COINS = 25;
+    private static final String[] TASK_FIELDS = { "levelId", "taskIndex" };
+    private static final String[] LEVEL_FIELDS = { "levelId" };
+    
+    // Achievements the server unlocks as players complete tasks and levels
+    private static final long SPEED_CHEF_SECONDS = 10 * 60;
+    private final AchievementRules achievementRules = new AchievementRules.Builder()
+            .atLeast("First Steps", AchievementRules.Counter.COMPLETED_TASKS, 1)
+            .equalTo("Pizza Pro", AchievementRules.Counter.COMPLETED_LEVEL, 1)
+            .equalTo("Burger Master", AchievementRules.Counter.COMPLETED_LEVEL, 2)
+            .equalTo("Noodle Ninja", AchievementRules.Counter.COMPLETED_LEVEL, 3)
+            .equalTo("Dessert Wizard", AchievementRules.Counter.COMPLETED_LEVEL, 4)
+            .atMost("Speed Chef", AchievementRules.Counter.SECONDS_TO_LEVEL, SPEED_CHEF_SECONDS)
+            .build();
+    
+    // Every endpoint; a handler reads path parameters by their position in the pattern
+    private final Router routes = new Router()
+            .get("/api/levels", (request, body) -> getLevelsResponse(request))
+            .get("/api/leaderboard", (request, body) -> getLeaderboard(request))
+            .get("/api/health", (request, body) -> HttpResponse.json(getHealth()))
+            .get("/api/metrics", (request, body) -> getMetrics())
+            .post("/api/player", (request, body) -> createPlayer(body))
+            .get("/api/player/{playerId}", (request, body) -> getPlayerData(request.pathParam(0)))
+            .get("/api/player/{playerId}/events", (request, body) -> getPlayerEvents(request.pathParam(0)))
+            .put("/api/player/{playerId}",
+                    (request, body) -> updatePlayerData(request.pathParam(0), body))
+            .delete("/api/player/{playerId}",
+                    (request, body) -> deletePlayer(request.pathParam(0)))
+            .post("/api/player/{playerId}/complete-task",
+                    (request, body) -> completeTask(request.pathParam(0), body))
+            .post("/api/player/{playerId}/complete-level",
+                    (request, body) -> completeLevel(request.pathParam(0), body))
+            .post("/api/events", (request, body) -> applyEvents(body));
+    
+    public SwiftFoodServer() {
+        this(EngineMode.BLOCKING);
+    }
+    
+    public SwiftFoodServer(EngineMode engineMode) {
+        this.engineMode = engineMode;
+        try {
+            players = new PlayerStore(Paths.get(DATA_DIR), JOURNAL_FSYNC, SNAPSHOT_INTERVAL_MS, SNAPSHOT_MAX_LOG_BYTES,
+                    MAX_HOT_PLAYERS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open player store in " + DATA_DIR, e);
+        }
+        players.setObserver(playerStreams);
+        try {
+            levelCatalog = new LevelCatalogWatcher(Paths.get(LEVELS_FILE), COMPRESSION_MIN_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the level catalog", e);
+        }
+        Path staticRoot = Paths.get(STATIC_DIR);
+        staticFiles = Files.isDirectory(staticRoot)
+                ? new StaticFiles(staticRoot, COMPRESSION_MIN_BYTES, STATIC_MAX_AGE_SECONDS) : null;
+        // A bounded queue: when it is full, new work is shed with a 503 instead of waiting without limit
+        threadPool = new ThreadPoolExecutor(10, 10, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(WORK_QUEUE_CAPACITY));
+    }
+    
+    public void start() {
+        levelCatalog.start();
+        if (engineMode == EngineMode.NIO) {
+            startNio();
+        } else {
+            startBlocking();
+        }
+    }
+    
+    private void startNio() {
+        try {
+            nioEngine = new NioConnectionEngine(this, PORT, threadPool, metrics);
+            running = true;
+            System.out.println(SERVER_NAME + " started on port " + PORT + " (NIO engine, keep-alive enabled)");
+            printStaticRoot();
+            System.out.println("Server is ready to handle requests...");
+            nioEngine.run();
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+        }
+    }
+    
+    private void startBlocking() {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(PORT));
+            running = true;
+            System.out.println(SERVER_NAME + " started on port " + PORT + " (blocking engine)");
+            printStaticRoot();
+            System.out.println("Server is ready to handle requests...");
+            
+            HttpResponseWriter shedWriter = new HttpResponseWriter();
+            while (running) {
+                SocketChannel client = serverChannel.accept();
+                try {
+                    threadPool.submit(new ClientHandler(client));
+                } catch (RejectedExecutionException e) {
+                    shed(client, shedWriter);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+        }
+    }
+    
+    // Answers on the accepting thread; the 503 fits in the socket buffer, so this does not block
+    private void shed(SocketChannel client, HttpResponseWriter writer) {
+        metrics.rejected(ServerMetrics.Rejection.OVERLOADED);
+        try (client) {
+            metrics.bytesSent(writer.write(client, overloadedResponse(), false));
+            // Finish the response before the unread request makes the close a reset
+            client.shutdownOutput();
+        } catch (IOException e) {
+            System.err.println("Error shedding client: " + e.getMessage());
+        }
+    }
+    
+    private void printStaticRoot() {
+        if (staticFiles != null) {
+            System.out.println("Serving frontend from " + staticFiles.getRoot());
+        } else {
+            System.out.println("Frontend directory " + STATIC_DIR + " not found; serving the API only");
+        }
+    }
+    
+    public void stop() {
+        running = false;
+        if (nioEngine != null) {
+            nioEngine.stop();
+        }
+        if (serverChannel != null && serverChannel.isOpen()) {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing server: " + e.getMessage());
+            }
+        }
+        try {
+            levelCatalog.close();
+        } catch (IOException e) {
+            System.err.println("Error closing level catalog watcher: " + e.getMessage());
+        }
+        threadPool.shutdown();
+        try {
+            threadPool.awaitTermination(10, TimeUnit.SECONDS);
+            players.close();
+        } catch (IOException e) {
+            System.err.println("Error closing player store: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Server stopped.");
+    }
+    
+    private static final int REQUEST_BUFFER_SIZE = 16 * 1024;
+    
+    // Largest request body accepted, in bytes (-Dswiftfood.maxBodyBytes=...)
+    static final int MAX_BODY_SIZE = Integer.getInteger("swiftfood.maxBodyBytes", HttpBodyReader.DEFAULT_MAX_BODY_SIZE);
+    static final byte[] CONTINUE_RESPONSE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    
+    // Blocking workers serve one socket at a time, so each keeps its own parser, buffer and writer
+    private static final ThreadLocal<HttpRequestParser> REQUEST_PARSER = ThreadLocal.withInitial(HttpRequestParser::new);
+    private static final ThreadLocal<ByteBuffer> REQUEST_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(REQUEST_BUFFER_SIZE));
+    private static final ThreadLocal<HttpResponseWriter> RESPONSE_WRITER = ThreadLocal.withInitial(HttpResponseWriter::new);
+    
+    private class ClientHandler implements Runnable {
+        private final SocketChannel channel;
+        
+        public ClientHandler(SocketChannel channel) {
+            this.channel = channel;
+        }
+        
+        @Override
+        public void run() {
+            metrics.connectionOpened();
+            try {
+                InetAddress client = ((InetSocketAddress) channel.getRemoteAddress()).getAddress();
+                
+                // Read the request head into this worker's pooled buffer
+                HttpRequestParser request = REQUEST_PARSER.get();
+                ByteBuffer buffer = REQUEST_BUFFER.get();
+                buffer.clear();
+                request.reset();
+                
+                int headLength;
+                while ((headLength = request.parse(buffer)) == HttpRequestParser.INCOMPLETE) {
+                    if (!buffer.hasRemaining()) {
+                        send(headTooLargeResponse());
+                        return;
+                    }
+                    int read = channel.read(buffer);
+                    if (read < 0) return;
+                    metrics.bytesReceived(read);
+                }
+                if (headLength == HttpRequestParser.MALFORMED) {
+                    send(createErrorResponse("Malformed request", 400));
+                    return;
+                }
+                
+                // Read body, reusing the buffer space behind the head for each read
+                HttpBodyReader bodyReader = new HttpBodyReader(MAX_BODY_SIZE);
+                bodyReader.begin(request);
+                bodyReader.feed(buffer.array(), headLength, buffer.position() - headLength);
+                if (!bodyReader.isComplete() && request.headerEquals("Expect", "100-continue")
+                        && bodyReader.status() == HttpBodyReader.Status.OK) {
+                    metrics.bytesSent(HttpResponseWriter.writeFully(channel, new ByteBuffer[] { ByteBuffer.wrap(CONTINUE_RESPONSE) }));
+                }
+                while (!bodyReader.isComplete() && bodyReader.status() == HttpBodyReader.Status.OK) {
+                    buffer.limit(buffer.capacity()).position(headLength);
+                    int read = channel.read(buffer);
+                    if (read < 0) return;
+                    metrics.bytesReceived(read);
+                    bodyReader.feed(buffer.array(), headLength, read);
+                }
+                if (bodyReader.status() != HttpBodyReader.Status.OK) {
+                    send(bodyErrorResponse(bodyReader.status()));
+                    return;
+                }
+                
+                // Handle request and send the response
+                String body = new String(bodyReader.body(), StandardCharsets.UTF_8);
+                send(handleRequest(request, body, client));
+            
+            } catch (IOException e) {
+                System.err.println("Error handling client: " + e.getMessage());
+            } finally {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing client socket: " + e.getMessage());
+                }
+                metrics.connectionClosed();
+            }
+        }
+        
+        private void send(HttpResponse response) throws IOException {
+            metrics.bytesSent(RESPONSE_WRITER.get().write(channel, response, false));
+        }
+    }
+    
+    /**
+     * Routes a parsed request to its handler and records how long it took.
+     * Shared by every connection engine.
+     */
+    HttpResponse handleRequest(HttpRequestParser request, String body, InetAddress client) {
+        long start = System.nanoTime();
+        String method = request.method();
+        Router.Route route = routes.match(request);
+        String label = route == null ? "other" : route.getPattern();
+        HttpResponse response = admit(request, method, route, client);
+        if (response == null && route == null && method.equals("GET")) {
+            response = serveStatic(request);
+            if (response != null) label = "static";
+        }
+        if (response == null) {
+            response = compressor.compress(dispatch(request, method, route, body), request);
+        }
+        metrics.recordRequest(methodLabel(method), label, response.getStatus(), System.nanoTime() - start);
+        return response;
+    }
+    
+    private HttpResponse dispatch(HttpRequestParser request, String method, Router.Route route, String body) {
+        if (method.equals("OPTIONS")) {
+            // CORS preflight for cross-origin clients; browsers may reuse the answer for a day
+            return new HttpResponse(204, null, new byte[0]).addHeader("Access-Control-Max-Age", "86400");
+        }
+        if (route == null) {
+            return createErrorResponse("Not found", 404);
+        }
+        Router.Handler handler = route.handler(method);
+        if (handler == null) {
+            return createErrorResponse("Method not allowed", 405);
+        }
+        try {
+            return handler.handle(request, body);
+        } catch (IllegalArgumentException e) {
+            // Bodies that do not parse or hold invalid values
+            return createErrorResponse(e.getMessage(), 400);
+        } catch (Exception e) {
+            return createErrorResponse("Internal server error: " + e.getMessage(), 500);
+        }
+    }
+    
+    /**
+     * Applies the per-address limit to every request and the per-player
+     * limit to requests that change a player.
+     *
+     * @return a 429 when a limit is exceeded, or null to go ahead
+     */
+    private HttpResponse admit(HttpRequestParser request, String method, Router.Route route, InetAddress client) {
+        if (addressLimiter != null && client != null) {
+            long wait = addressLimiter.tryAcquire(client);
+            if (wait > 0) return rateLimited(ServerMetrics.Rejection.ADDRESS_RATE_LIMIT, wait);
+        }
+        // Reads are harmless; writes award XP and coins, so scripted clients are held to a human pace.
+        // Buckets are keyed by player number and only made for players that exist, so other
+        // spellings of an id cannot get fresh buckets and made-up ids cannot crowd out real ones
+        if (playerLimiter != null && route != null && request.pathParamCount() > 0 && !method.equals("GET")) {
+            long key = PlayerIdGenerator.parse(request.pathParam(0));
+            if (key > 0 && players.exists(key)) {
+                long wait = playerLimiter.tryAcquire(key);
+                if (wait > 0) return rateLimited(ServerMetrics.Rejection.PLAYER_RATE_LIMIT, wait);
+            }
+        }
+        return null;
+    }
+    
+    private HttpResponse rateLimited(ServerMetrics.Rejection reason, long waitNanos) {
+        metrics.rejected(reason);
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+        return createErrorResponse("Too many requests", 429).addHeader("Retry-After", Long.toString(seconds));
+    }
+    
+    /**
+     * Charges a batch to the limits of the players it changes, once per
+     * player: one token for each EVENTS_PER_TOKEN of that player's events,
+     * rounded up. A batch of a few seconds of play costs what one request
+     * does, so batching is never penalised, yet a player's events still
+     * cannot arrive much faster than its requests could.
+     *
+     * @return the keys of players over their limit, whose events are all refused
+     */
+    private Set<Long> admitEvents(List<GameEvent> events) {
+        if (playerLimiter == null) return Set.of();
+        Map<Long, Integer> eventCounts = new HashMap<>();
+        for (GameEvent event : events) {
+            long key = PlayerIdGenerator.parse(event.getPlayerId());
+            if (key > 0) eventCounts.merge(key, 1, Integer::sum);
+        }
+        Set<Long> limited = new HashSet<>();
+        for (Map.Entry<Long, Integer> entry : eventCounts.entrySet()) {
+            if (!players.exists(entry.getKey())) continue;
+            int tokens = (entry.getValue() + EVENTS_PER_TOKEN - 1) / EVENTS_PER_TOKEN;
+            if (playerLimiter.tryAcquire(entry.getKey(), tokens) > 0) {
+                metrics.rejected(ServerMetrics.Rejection.PLAYER_RATE_LIMIT);
+                limited.add(entry.getKey());
+            }
+        }
+        return limited;
+    }
+    
+    /** The answer when the work queue is full; clients should back off briefly. */
+    static HttpResponse overloadedResponse() {
+        return createErrorResponse("Server overloaded", 503).addHeader("Retry-After", "1");
+    }
+    
+    private static <K> RateLimiter<K> rateLimiter(String name, double perSecond, int burst) {
+        String prefix = "swiftfood.rateLimit." + name;
+        double rate = Double.parseDouble(System.getProperty(prefix + "PerSecond", Double.toString(perSecond)));
+        int size = Integer.getInteger(prefix + "Burst", burst);
+        return rate > 0 ? new RateLimiter<>(rate, size, RATE_LIMIT_MAX_KEYS) : null;
+    }
+    
+    /** A frontend file for a path no API route claims, or null when there is none. */
+    private HttpResponse serveStatic(HttpRequestParser request) {
+        if (staticFiles == null) return null;
+        try {
+            return staticFiles.serve(request);
+        } catch (IOException e) {
+            System.err.println("Error serving static file " + request.path() + ": " + e.getMessage());
+            return createErrorResponse("Internal server error: " + e.getMessage(), 500);
+        }
+    }
+    
+    // Metric labels come from fixed sets, so odd requests cannot grow the metrics without bound
+    private static String methodLabel(String method) {
+        switch (method) {
+            case "GET": case "POST": case "PUT": case "DELETE": case "OPTIONS": return method;
+            default: return "OTHER";
+        }
+    }
+    
+    /**
+     * Response for a body that could not be read; the connection is closed
+     * afterwards because the rest of the body was never drained.
+     */
+    static HttpResponse bodyErrorResponse(HttpBodyReader.Status status) {
+        if (status == HttpBodyReader.Status.TOO_LARGE) {
+            return createErrorResponse("Request body too large", 413);
+        }
+        return createErrorResponse("Malformed request body", 400);
+    }
+    
+    /** Response for a request head that does not fit the read buffer; the connection is closed afterwards. */
+    static HttpResponse headTooLargeResponse() {
+        return createErrorResponse("Request header fields too large", 431);
+    }
+    
+    /**
+     * Serves the level catalog from its cached encoding, precompressed when
+     * the client accepts it, or a 304 when the client's If-None-Match
+     * already names the current version.
+     */
+    private HttpResponse getLevelsResponse(HttpRequestParser request) {
+        CachedPayload payload = levelCatalog.current().getPayload();
+        ResponseCompressor.Encoding encoding = ResponseCompressor.negotiate(request.header("Accept-Encoding"));
+        if (payload.matches(request.header("If-None-Match"))) {
+            return HttpResponse.notModified(payload, encoding).addHeader("Cache-Control", "no-cache");
+        }
+        return HttpResponse.cached(payload, encoding).addHeader("Cache-Control", "no-cache");
+    }
+    
+    private HttpResponse getPlayerData(CharSequence playerId) {
+        PlayerData player = players.get(playerId);
+        if (player == null) {
+            return createErrorResponse("Player not found", 404);
+        }
+        return HttpResponse.json(player.writeJson(JsonWriter.local()));
+    }
+    
+    /**
+     * Server-sent events for one player: a snapshot of the whole player, then
+     * a delta event with just the changed fields whenever it changes.
+     */
+    private HttpResponse getPlayerEvents(CharSequence playerId) {
+        PlayerData player = players.get(playerId);
+        if (player == null) {
+            return createErrorResponse("Player not found", 404);
+        }
+        if (engineMode != EngineMode.NIO) {
+            return new HttpResponse(200, "text/event-stream",
+                    PlayerStreams.snapshotEvent(player, player.getState(), POLL_RETRY_MS))
+                    .addHeader("Cache-Control", "no-cache");
+        }
+        PlayerStreams.Subscription subscription = playerStreams.subscribe(player);
+        if (subscription == null) {
+            return createErrorResponse("Too many streams for this player", 429);
+        }
+        return HttpResponse.eventStream(subscription, STREAM_RETRY_MS);
+    }
+    
+    /**
+     * GET /api/leaderboard?by=xp|level|coins&limit=N[&playerId=...]: the top
+     * players, and the named player's own rank when one is given.
+     */
+    private HttpResponse getLeaderboard(HttpRequestParser request) {
+        String by = request.queryParam("by");
+        Leaderboard.Metric metric = by == null ? Leaderboard.Metric.XP : Leaderboard.Metric.fromWireName(by);
+        if (metric == null) {
+            return createErrorResponse("by must be xp, level or coins", 400);
+        }
+        int limit = 10;
+        String limitParam = request.queryParam("limit");
+        if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit < 1 || limit > Leaderboard.MAX_LIMIT) {
+                return createErrorResponse("limit must be between 1 and " + Leaderboard.MAX_LIMIT, 400);
+            }
+        }
+        
+        Leaderboard leaderboard = players.getLeaderboard();
+        JsonWriter json = JsonWriter.local().beginObject();
+        json.name("by").value(metric.getWireName());
+        json.name("totalPlayers").value(leaderboard.size());
+        json.name("players").beginArray();
+        long rank = 0;
+        long previousScore = Long.MIN_VALUE;
+        List<Leaderboard.Entry> top = leaderboard.top(metric, limit);
+        for (int i = 0; i < top.size(); i++) {
+            Leaderboard.Entry entry = top.get(i);
+            // Read without loading, so listing cold players does not evict hot ones
+            PlayerData player = players.peek(entry.getKey());
+            if (player == null) continue; // deleted since
+            if (entry.getScore() != previousScore) rank = i + 1; // equal scores share a rank
+            previousScore = entry.getScore();
+            writeRankedPlayer(json, player, rank, entry.getScore());
+        }
+        json.endArray();
+        
+        String playerId = request.queryParam("playerId");
+        if (playerId != null) {
+            PlayerData player = players.get(playerId);
+            if (player == null) {
+                return createErrorResponse("Player not found", 404);
+            }
+            json.name("player");
+            writeRankedPlayer(json, player, leaderboard.rank(metric, player), leaderboard.score(metric, player));
+        }
+        return HttpResponse.json(json.endObject());
+    }
+    
+    private JsonWriter getHealth() {
+        return JsonWriter.local().beginObject()
+                .name("status").value("healthy")
+                .name("server").value(SERVER_NAME)
+                .endObject();
+    }
+    
+    /** Server, worker pool and player store metrics in the Prometheus text format. */
+    private HttpResponse getMetrics() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        metrics.writePrometheus(out);
+        
+        ServerMetrics.gauge(out, "swiftfood_worker_threads_active", "Workers currently handling a request.", threadPool.getActiveCount());
+        ServerMetrics.gauge(out, "swiftfood_worker_queue_depth", "Requests waiting for a worker.", threadPool.getQueue().size());
+        ServerMetrics.gauge(out, "swiftfood_worker_threads", "Worker threads in the pool.", threadPool.getPoolSize());
+        ServerMetrics.gauge(out, "swiftfood_player_streams_open", "Player event streams held open.", playerStreams.getOpenCount());
+        
+        ServerMetrics.gauge(out, "swiftfood_players", "Players stored.", players.size());
+        ServerMetrics.gauge(out, "swiftfood_players_in_memory", "Players held in memory.", players.getHotSize());
+        ServerMetrics.gauge(out, "swiftfood_players_on_disk", "Players evicted to the cold file.", players.getColdSize());
+        ServerMetrics.counter(out, "swiftfood_player_cache_hits_total", "Player lookups served from memory.", players.getHits());
+        ServerMetrics.counter(out, "swiftfood_player_cache_loads_total", "Players loaded back from disk.", players.getLoads());
+        ServerMetrics.counter(out, "swiftfood_player_cache_evictions_total", "Players evicted to disk.", players.getEvictions());
+        ServerMetrics.counter(out, "swiftfood_player_cache_load_seconds_total", "Time spent loading players from disk.",
+                players.getLoadNanos() / 1e9);
+        ServerMetrics.gauge(out, "swiftfood_player_cache_load_seconds_max", "Slowest load of a player from disk.",
+                players.getMaxLoadNanos() / 1e9);
+        
+        return new HttpResponse(200, "text/plain; version=0.0.4; charset=utf-8",
+                out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void writeRankedPlayer(JsonWriter json, PlayerData player, long rank, long score) {
+        json.beginObject();
+        json.name("rank").value(rank);
+        json.name("playerId").value(player.getPlayerId());
+        json.name("playerName").value(player.getPlayerName());
+        json.name("level").value(player.getLevel());
+        json.name("score").value(score);
+        json.endObject();
+    }
+    
+    private HttpResponse createPlayer(String playerData) {
+        String playerName = PlayerUpdate.parsePlayerName(playerData);
+        String playerId = playerIds.nextId();
+        PlayerData player = new PlayerData(playerId);
+        if (playerName != null) {
+            player.setPlayerName(playerName);
+        }
+        players.create(player);
+        players.flush();
+        
+        return HttpResponse.json(201, JsonWriter.local().beginObject()
+                .name("playerId").value(playerId)
+                .name("message").value("Player created successfully")
+                .endObject());
+    }
+    
+    private HttpResponse completeTask(CharSequence playerId, String taskData) {
+        PlayerData player = players.get(playerId);
+        if (player == null) {
+            return createErrorResponse("Player not found", 404);
+        }
+        int[] ids = parseIds(taskData, TASK_FIELDS);
+        int xpGained = awardTask(player, ids[0], ids[1]);
+        if (xpGained < 0) {
+            return createErrorResponse("Task not found", 404);
+        }
+        players.flush();
+        
+        return rewardResponse("Task completed", xpGained, TASK_COINS, player);
+    }
+    
+    private HttpResponse completeLevel(CharSequence playerId, String levelData) {
+        PlayerData player = players.get(playerId);
+        if (player == null) {
+            return createErrorResponse("Player not found", 404);
+        }
+        int xpGained = awardLevel(player, parseIds(levelData, LEVEL_FIELDS)[0]);
+        if (xpGained < 0) {
+            return createErrorResponse("Level not found", 404);
+        }
+        players.flush();
+        
+        return rewardResponse("Level completed", xpGained, LEVEL_COINS, player);
+    }
+    
+    /**
+     * Grants the rewards for one task, without flushing.
+     *
+     * @return the XP gained, or -1 if the level has no such task
+     */
+    private int awardTask(PlayerData player, int levelId, int taskIndex) {
+        LevelData level = levelCatalog.current().get(levelId);
+        if (level == null || taskIndex < 0 || taskIndex >= level.getTasks().size()) {
+            return -1;
+        }
+        int xpGained = level.getTasks().get(taskIndex).getXpReward();
+        players.addXP(player, xpGained);
+        players.addCoins(player, TASK_COINS);
+        players.completeTask(player);
+        unlockEarned(player, achievementRules.evaluate(AchievementRules.Counter.COMPLETED_TASKS,
+                player.getCompletedTasks(), player.getAchievementBits()));
+        return xpGained;
+    }
+    
+    /**
+     * Grants the rewards for a whole level, without flushing.
+     *
+     * @return the XP gained, or -1 if there is no such level
+     */
+    private int awardLevel(PlayerData player, int levelId) {
+        LevelData level = levelCatalog.current().get(levelId);
+        if (level == null) {
+            return -1;
+        }
+        int xpGained = level.getXpReward();
+        players.addXP(player, xpGained);
+        players.addCoins(player, LEVEL_COINS);
+        players.incrementLevel(player);
+        
+        long unlocked = player.getAchievementBits();
+        long secondsToLevel = (System.currentTimeMillis() - player.getCreatedAt()) / 1000;
+        unlockEarned(player, achievementRules.evaluate(AchievementRules.Counter.COMPLETED_LEVEL, levelId, unlocked)
+                | achievementRules.evaluate(AchievementRules.Counter.SECONDS_TO_LEVEL, secondsToLevel, unlocked));
+        return xpGained;
+    }
+    
+    /** Unlocks the achievements in a bitmask from {@link AchievementRules}. */
+    private void unlockEarned(PlayerData player, long earned) {
+        for (int i = 0; earned != 0 && i < Achievements.count(); i++) {
+            if ((earned & (1L << i)) != 0) players.unlockAchievement(player, Achievements.name(i));
+        }
+    }
+    
+    /**
+     * Applies a batch of game events in order and flushes once for all of
+     * them. Events that cannot be applied (unknown player, too few coins, ...)
+     * are reported in their result slot without stopping the rest.
+     */
+    private HttpResponse applyEvents(String body) {
+        List<GameEvent> events = GameEvent.parseBatch(body);
+        Set<Long> limited = admitEvents(events);
+        Map<Long, PlayerData> touched = new LinkedHashMap<>();
+        int applied = 0;
+        
+        JsonWriter json = JsonWriter.local().beginObject();
+        json.name("results").beginArray();
+        for (GameEvent event : events) {
+            json.beginObject();
+            PlayerData player = players.get(event.getPlayerId());
+            String error = player == null ? "Player not found"
+                    : limited.contains(player.getKey()) ? "Too many requests" : applyEvent(player, event, json);
+            if (error == null) {
+                applied++;
+                touched.put(player.getKey(), player);
+            } else {
+                json.name("error").value(error);
+            }
+            json.endObject();
+        }
+        json.endArray();
+        players.flush();
+        
+        json.name("applied").value(applied);
+        json.name("failed").value(events.size() - applied);
+        json.name("players").beginArray();
+        for (PlayerData player : touched.values()) {
+            player.writeJson(json);
+        }
+        json.endArray();
+        return HttpResponse.json(json.endObject());
+    }
+    
+    /** Applies one event, writing its result fields; returns an error message if it was not applied. */
+    private String applyEvent(PlayerData player, GameEvent event, JsonWriter json) {
+        switch (event.getType()) {
+            case COMPLETE_TASK: {
+                int xpGained = awardTask(player, event.getLevelId(), event.getTaskIndex());
+                if (xpGained < 0) return "Task not found";
+                json.name("xpGained").value(xpGained).name("coinsGained").value(TASK_COINS);
+                return null;
+            }
+            case COMPLETE_LEVEL: {
+                int xpGained = awardLevel(player, event.getLevelId());
+                if (xpGained < 0) return "Level not found";
+                json.name("xpGained").value(xpGained).name("coinsGained").value(LEVEL_COINS);
+                return null;
+            }
+            case SPEND_COINS:
+                if (!players.spendCoins(player, event.getAmount())) return "Not enough coins";
+                json.name("coinsSpent").value(event.getAmount());
+                return null;
+            case UNLOCK_ACHIEVEMENT:
+                if (!Achievements.exists(event.getAchievement())) return "Unknown achievement";
+                json.name("unlocked").value(players.unlockAchievement(player, event.getAchievement()));
+                return null;
+            default:
+                return "Unsupported event";
+        }
+    }
+    
+    private HttpResponse updatePlayerData(CharSequence playerId, String playerData) {
+        PlayerData player = players.get(playerId);
+        if (player == null) {
+            return createErrorResponse("Player not found", 404);
+        }
+        PlayerUpdate update = PlayerUpdate.parse(playerData);
+        for (String achievement : update.getUnlockedAchievements()) {
+            if (!Achievements.exists(achievement)) {
+                return createErrorResponse("Unknown achievement: " + achievement, 400);
+            }
+        }
+        if (!update.isEmpty()) {
+            players.update(player, update);
+            players.flush();
+        }
+        
+        JsonWriter json = JsonWriter.local().beginObject();
+        json.name("message").value("Player data updated successfully");
+        player.writeJson(json.name("player"));
+        return HttpResponse.json(json.endObject());
+    }
+    
+    /**
+     * Reads the required integer members named by {@code fields} from a body
+     * such as {"levelId":1,"taskIndex":0}.
+     */
+    private static int[] parseIds(String body, String[] fields) {
+        int[] values = new int[fields.length];
+        int seen = 0;
+        JsonReader json = JsonReader.local(body);
+        json.beginObject();
+        while (json.hasNext()) {
+            int field = json.nextName(fields);
+            if (field < 0) {
+                json.skipValue();
+                continue;
+            }
+            values[field] = json.nextInt();
+            seen |= 1 << field;
+        }
+        json.endObject();
+        json.endDocument();
+        for (int i = 0; i < fields.length; i++) {
+            if ((seen & (1 << i)) == 0) throw new IllegalArgumentException(fields[i] + " is required");
+        }
+        return values;
+    }
+    
+    private static HttpResponse rewardResponse(String message, int xpGained, int coinsGained, PlayerData player) {
+        JsonWriter json = JsonWriter.local().beginObject();
+        json.name("message").value(message);
+        json.name("xpGained").value(xpGained);
+        json.name("coinsGained").value(coinsGained);
+        player.writeJson(json.name("player"));
+        return HttpResponse.json(json.endObject());
+    }
+    
+    private HttpResponse deletePlayer(CharSequence playerId) {
+        PlayerData player = players.get(playerId);
+        if (player == null || players.delete(player) == null) {
+            return createErrorResponse("Player not found", 404);
+        }
+        players.flush();
+        playerStreams.playerDeleted(player);
+        
+        return HttpResponse.json("{\"message\":\"Player deleted successfully\"}");
+    }
+    
+    /** An error with its status both on the response and in the body. */
+    static HttpResponse createErrorResponse(String message, int code) {
+        // Messages can carry exception text, so they go through the escaping writer
+        return HttpResponse.json(code, JsonWriter.local().beginObject()
+                .name("error").value(message)
+                .name("code").value(code)
+                .endObject());
+    }
+    
+    public static void main(String[] args) {
+        // Usage: java -jar target/swiftfood-server.jar [blocking|nio]
+        EngineMode mode = EngineMode.BLOCKING;
+        if (args.length > 0) {
+            try {
+                mode = EngineMode.valueOf(args[0].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown engine mode '" + args[0] + "', expected blocking or nio");
+                return;
+            }
+        }
+        SwiftFoodServer server = new SwiftFoodServer(mode);
+        
+        // Add shutdown hook
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Shutting down server...");
+            server.stop();
+        }));
+        
+        server.start();
+    }
+} 
\ No newline at end of file
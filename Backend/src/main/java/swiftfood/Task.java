@@ -0,0 +1,55 @@
+package swiftfood;
+
+/**
+ * Task class represents a task within a level in the SwiftFood game.
+ * Tasks belong to the shared level catalog and never change; a player's
+ * progress through them is kept in PlayerData.
+ */
+public final class Task {
+    private final String title;
+    private final String description;
+    private final String icon;
+    private final int xpReward;
+    
+    public Task(String title, String description, int xpReward) {
+        this(title, description, "🍽️", xpReward); // Default icon
+    }
+    
+    public Task(String title, String description, String icon, int xpReward) {
+        this.title = title;
+        this.description = description;
+        this.icon = icon;
+        this.xpReward = xpReward;
+    }
+    
+    // Getters
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public String getIcon() { return icon; }
+    public int getXpReward() { return xpReward; }
+    
+    public String toJson() {
+        return writeJson(JsonWriter.local()).toString();
+    }
+    
+    public JsonWriter writeJson(JsonWriter json) {
+        json.beginObject();
+        json.name("title").value(title);
+        json.name("description").value(description);
+        json.name("icon").value(icon);
+        json.name("xpReward").value(xpReward);
+        // Kept for clients of the catalog format; completion is tracked per player
+        json.name("completed").value(false);
+        return json.endObject();
+    }
+    
+    @Override
+    public String toString() {
+        return "Task{" +
+                "title='" + title + '\'' +
+                ", description='" + description + '\'' +
+                ", icon='" + icon + '\'' +
+                ", xpReward=" + xpReward +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ColdPlayerFileTest {
+    @TempDir
+    Path directory;
+    
+    @Test
+    void matchesAMapUnderRandomPutsAndRemovesWithCompaction() throws IOException {
+        Path path = directory.resolve("players.cold");
+        Random random = new Random(9);
+        Map<Long, byte[]> expected = new HashMap<>();
+        long largestFile = 0;
+        try (ColdPlayerFile cold = new ColdPlayerFile(path, 16 * 1024)) {
+            for (int i = 0; i < 50_000; i++) {
+                long key = 1 + random.nextInt(3_000);
+                if (random.nextInt(3) == 0) {
+                    expected.remove(key);
+                    cold.remove(key);
+                } else {
+                    byte[] record = new byte[1 + random.nextInt(200)];
+                    random.nextBytes(record);
+                    expected.put(key, record);
+                    cold.put(key, record);
+                }
+                largestFile = Math.max(largestFile, Files.size(path));
+            }
+            
+            assertEquals(expected.size(), cold.size());
+            for (long key = 1; key <= 3_000; key++) {
+                assertEquals(expected.containsKey(key), cold.contains(key), "contains " + key);
+                assertArrayEquals(expected.get(key), cold.get(key), "record " + key);
+            }
+            Map<Long, byte[]> visited = new HashMap<>();
+            cold.forEach(visited::put);
+            assertEquals(expected.keySet(), visited.keySet());
+            visited.forEach((key, record) -> assertArrayEquals(expected.get(key), record));
+            
+            // Without compaction the file would hold every record ever written, about 3.4 MB
+            long live = expected.values().stream().mapToLong(record -> record.length).sum();
+            assertTrue(largestFile < 4 * live, "file grew to " + largestFile + " for " + live + " live bytes");
+        }
+        assertFalse(Files.exists(path), "closing deletes the file");
+    }
+    
+    @Test
+    void compactsOnceMostOfTheFileIsDead() throws IOException {
+        Path path = directory.resolve("players.cold");
+        try (ColdPlayerFile cold = new ColdPlayerFile(path, 1024)) {
+            byte[] record = new byte[100];
+            for (long key = 1; key <= 100; key++) {
+                Arrays.fill(record, (byte) key);
+                cold.put(key, record.clone());
+            }
+            assertEquals(10_000, Files.size(path));
+            for (long key = 1; key <= 50; key++) {
+                cold.remove(key);
+            }
+            assertEquals(10_000, Files.size(path), "half dead is not yet compacted");
+            cold.remove(51);
+            assertEquals(4_900, Files.size(path));
+            assertEquals(49, cold.size());
+            assertNull(cold.get(1));
+            for (long key = 52; key <= 100; key++) {
+                Arrays.fill(record, (byte) key);
+                assertArrayEquals(record, cold.get(key));
+            }
+            cold.remove(12_345);
+            assertEquals(49, cold.size());
+        }
+    }
+    
+    @Test
+    void startsEmptyEveryTime() throws IOException {
+        Path path = directory.resolve("players.cold");
+        try (ColdPlayerFile cold = new ColdPlayerFile(path)) {
+            cold.put(7, new byte[] { 1, 2, 3 });
+        }
+        Files.write(path, new byte[] { 9, 9, 9 });
+        try (ColdPlayerFile cold = new ColdPlayerFile(path)) {
+            assertEquals(0, cold.size());
+            assertNull(cold.get(7));
+            assertEquals(0, Files.size(path));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class HttpBodyReaderTest {
+    private static final int MAX_BODY = 64;
+    private static final String CHUNKED = "Transfer-Encoding: chunked\r\n";
+    
+    private final HttpBodyReader reader = new HttpBodyReader(MAX_BODY);
+    
+    @Test
+    void readsContentLengthAndLeavesTheNextRequest() {
+        begin("Content-Length: 5\r\n");
+        byte[] data = bytes("helloGET / HTTP/1.1");
+        assertEquals(2, reader.feed(data, 0, 2));
+        assertFalse(reader.isComplete());
+        assertEquals(3, reader.feed(data, 2, data.length - 2));
+        assertTrue(reader.isComplete());
+        assertEquals("hello", text(reader.body()));
+    }
+    
+    @Test
+    void completesAnEmptyBodyAtOnce() {
+        begin("");
+        assertTrue(reader.isComplete());
+        assertEquals(0, reader.body().length);
+    }
+    
+    @Test
+    void refusesBadContentLengths() {
+        begin("Content-Length: 12x\r\n");
+        assertEquals(HttpBodyReader.Status.MALFORMED, reader.status());
+        begin("Content-Length: " + (MAX_BODY + 1) + "\r\n");
+        assertEquals(HttpBodyReader.Status.TOO_LARGE, reader.status());
+    }
+    
+    @Test
+    void decodesChunksSplitAnywhere() {
+        String encoded = "4\r\nWiki\r\n5;name=value\r\npedia\r\nE\r\n in\r\n\r\nchunks.\r\n0\r\nExpires: never\r\n\r\n";
+        byte[] data = bytes(encoded + "next");
+        // Every split point, the worst being one byte per read
+        for (int split = 1; split < encoded.length(); split++) {
+            begin(CHUNKED);
+            int used = reader.feed(data, 0, split);
+            used += reader.feed(data, split, data.length - split);
+            assertTrue(reader.isComplete(), "split at " + split);
+            assertEquals(encoded.length(), used, "split at " + split);
+            assertEquals("Wikipedia in\r\n\r\nchunks.", text(reader.body()));
+        }
+        
+        begin(CHUNKED);
+        int used = 0;
+        while (!reader.isComplete()) {
+            used += reader.feed(data, used, 1);
+        }
+        assertEquals(encoded.length(), used);
+        assertEquals("Wikipedia in\r\n\r\nchunks.", text(reader.body()));
+    }
+    
+    @Test
+    void refusesBadChunkSizes() {
+        assertChunked(HttpBodyReader.Status.MALFORMED, "zz\r\nab\r\n0\r\n\r\n");
+        assertChunked(HttpBodyReader.Status.MALFORMED, "\r\n0\r\n\r\n");
+        assertChunked(HttpBodyReader.Status.MALFORMED, "-1\r\n");
+        assertChunked(HttpBodyReader.Status.MALFORMED, "2\nab\r\n0\r\n\r\n");
+        assertChunked(HttpBodyReader.Status.TOO_LARGE, "100000000\r\n");
+        assertChunked(HttpBodyReader.Status.TOO_LARGE, Integer.toHexString(MAX_BODY + 1) + "\r\n");
+        assertChunked(HttpBodyReader.Status.TOO_LARGE, "20\r\n" + "a".repeat(32) + "\r\n21\r\n");
+    }
+    
+    @Test
+    void refusesChunkDataWithoutItsLineEnd() {
+        assertChunked(HttpBodyReader.Status.MALFORMED, "2\r\nabc\r\n0\r\n\r\n");
+        assertChunked(HttpBodyReader.Status.MALFORMED, "2\r\nab\rx0\r\n\r\n");
+    }
+    
+    @Test
+    void refusesOtherTransferEncodings() {
+        begin("Transfer-Encoding: gzip, chunked\r\n");
+        assertEquals(HttpBodyReader.Status.MALFORMED, reader.status());
+        begin(CHUNKED + "Content-Length: 4\r\n");
+        assertEquals(HttpBodyReader.Status.MALFORMED, reader.status());
+    }
+    
+    private void assertChunked(HttpBodyReader.Status expected, String encoded) {
+        begin(CHUNKED);
+        byte[] data = bytes(encoded);
+        reader.feed(data, 0, data.length);
+        assertFalse(reader.isComplete(), encoded);
+        assertEquals(expected, reader.status(), encoded);
+    }
+    
+    private void begin(String headers) {
+        HttpRequestParser head = new HttpRequestParser();
+        byte[] bytes = bytes("POST /api/events HTTP/1.1\r\n" + headers + "\r\n");
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes);
+        assertEquals(bytes.length, head.parse(buffer));
+        reader.begin(head);
+    }
+    
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,124 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class HttpRequestParserTest {
+    private final HttpRequestParser parser = new HttpRequestParser();
+    
+    @Test
+    void parsesRequestLineAndHeaders() {
+        String head = "POST /api/player/player_7/complete-task?x=1 HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "content-length:  12 \r\n"
+                + "X-Empty:\r\n"
+                + "\r\n";
+        ByteBuffer buffer = bufferOf(head + "{\"taskId\":1}");
+        
+        assertEquals(head.length(), parser.parse(buffer));
+        assertEquals(head.length(), parser.headLength());
+        assertSame("POST", parser.method());
+        assertEquals("/api/player/player_7/complete-task", parser.path());
+        assertTrue(parser.pathEquals("/api/player/player_7/complete-task"));
+        assertEquals("/api/player/player_7/complete-task".length(), parser.pathLength());
+        assertEquals("x=1", parser.query());
+        assertEquals(3, parser.headerCount());
+        assertEquals("localhost", parser.header("HOST"));
+        assertEquals("12", parser.header("Content-Length"));
+        assertEquals(12, parser.contentLength());
+        assertEquals("", parser.header("X-Empty"));
+        assertNull(parser.header("Accept"));
+        assertFalse(parser.isHttp10());
+        assertTrue(parser.isKeepAlive());
+    }
+    
+    @Test
+    void waitsForTheWholeHead() {
+        String head = "GET /api/levels HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        byte[] bytes = head.getBytes(StandardCharsets.US_ASCII);
+        // One byte at a time, as a slow client would send it
+        for (int i = 0; i < bytes.length - 1; i++) {
+            buffer.put(bytes[i]);
+            assertEquals(HttpRequestParser.INCOMPLETE, parser.parse(buffer), "after " + (i + 1) + " bytes");
+        }
+        buffer.put(bytes[bytes.length - 1]);
+        assertEquals(bytes.length, parser.parse(buffer));
+        assertEquals("/api/levels", parser.path());
+        assertNull(parser.query());
+    }
+    
+    @Test
+    void acceptsBareLineFeedsAndLeadingBlankLines() {
+        String head = "\r\n\nGET /api/health HTTP/1.0\nConnection: Keep-Alive\n\n";
+        assertEquals(head.length(), parser.parse(bufferOf(head)));
+        assertEquals("GET", parser.method());
+        assertEquals("/api/health", parser.path());
+        assertTrue(parser.isHttp10());
+        assertTrue(parser.isKeepAlive());
+    }
+    
+    @Test
+    void keepAliveFollowsTheVersionDefault() {
+        parser.parse(bufferOf("GET / HTTP/1.0\r\n\r\n"));
+        assertFalse(parser.isKeepAlive());
+        parser.reset();
+        parser.parse(bufferOf("GET / HTTP/1.1\r\nConnection: close\r\n\r\n"));
+        assertFalse(parser.isKeepAlive());
+    }
+    
+    @Test
+    void rejectsMalformedHeads() {
+        assertEquals(HttpRequestParser.MALFORMED, parser.parse(bufferOf(" /path HTTP/1.1\r\n\r\n")));
+        parser.reset();
+        assertEquals(HttpRequestParser.MALFORMED, parser.parse(bufferOf("GET\r\n\r\n")));
+        parser.reset();
+        assertEquals(HttpRequestParser.MALFORMED, parser.parse(bufferOf("GET  HTTP/1.1\r\n\r\n")));
+        
+        StringBuilder head = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i <= 64; i++) {
+            head.append("X-Header-").append(i).append(": ").append(i).append("\r\n");
+        }
+        parser.reset();
+        assertEquals(HttpRequestParser.MALFORMED, parser.parse(bufferOf(head + "\r\n")));
+    }
+    
+    @Test
+    void reportsInvalidContentLength() {
+        parser.parse(bufferOf("POST / HTTP/1.1\r\n\r\n"));
+        assertEquals(0, parser.contentLength());
+        parser.reset();
+        parser.parse(bufferOf("POST / HTTP/1.1\r\nContent-Length: -5\r\n\r\n"));
+        assertEquals(-1, parser.contentLength());
+        parser.reset();
+        parser.parse(bufferOf("POST / HTTP/1.1\r\nContent-Length: 1234567890123456789\r\n\r\n"));
+        assertEquals(-1, parser.contentLength());
+    }
+    
+    @Test
+    void decodesQueryParameters() {
+        parser.parse(bufferOf("GET /api/leaderboard?by=xp&name=Chef+%C3%A9&flag&limit=5 HTTP/1.1\r\n\r\n"));
+        assertEquals("/api/leaderboard", parser.path());
+        assertEquals("xp", parser.queryParam("by"));
+        assertEquals("Chef é", parser.queryParam("name"));
+        assertEquals("", parser.queryParam("flag"));
+        assertEquals("5", parser.queryParam("limit"));
+        assertNull(parser.queryParam("missing"));
+    }
+    
+    @Test
+    void keepsUnknownMethods() {
+        parser.parse(bufferOf("BREW /pot HTTP/1.1\r\n\r\n"));
+        assertEquals("BREW", parser.method());
+    }
+    
+    private static ByteBuffer bufferOf(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 64);
+        buffer.put(bytes);
+        return buffer;
+    }
+}
@@ -0,0 +1,102 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class JsonReaderTest {
+    private static final String[] NAMES = { "id", "tags", "nested" };
+    
+    @Test
+    void readsMembersAndSkipsUnwantedValues() {
+        JsonReader json = new JsonReader().reset(" { \"id\" : 7 , \"extra\" : {\"a\":[1,-2.5e3,\"}\",null,true,{}]},"
+                + " \"tags\": [\"a\", \"b\\\"c\"], \"nested\": {\"x\": false} } ");
+        json.beginObject();
+        assertTrue(json.hasNext());
+        assertEquals(0, json.nextName(NAMES));
+        assertEquals(7, json.nextInt());
+        assertTrue(json.hasNext());
+        assertEquals(-1, json.nextName(NAMES));
+        assertEquals(JsonReader.Token.OBJECT, json.peek());
+        json.skipValue();
+        assertTrue(json.hasNext());
+        assertEquals(1, json.nextName(NAMES));
+        json.beginArray();
+        assertTrue(json.hasNext());
+        assertEquals("a", json.nextString());
+        assertTrue(json.hasNext());
+        assertEquals("b\"c", json.nextString());
+        assertFalse(json.hasNext());
+        json.endArray();
+        assertTrue(json.hasNext());
+        assertEquals("nested", json.nextName());
+        json.beginObject();
+        assertTrue(json.hasNext());
+        assertEquals("x", json.nextName());
+        assertFalse(json.nextBoolean());
+        assertFalse(json.hasNext());
+        json.endObject();
+        assertFalse(json.hasNext());
+        json.endObject();
+        json.endDocument();
+    }
+    
+    @Test
+    void decodesEscapes() {
+        assertEquals("a\"\\/\b\f\n\r\té🍕", read("\"a\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\ud83c\\udf55\""));
+        assertMalformed("\"bad \\x escape\"");
+        assertMalformed("\"short \\u12\"");
+        assertMalformed("\"raw \n newline\"");
+        assertMalformed("\"unterminated");
+    }
+    
+    @Test
+    void readsTheWholeLongRange() {
+        assertEquals(Long.MAX_VALUE, new JsonReader().reset("9223372036854775807").nextLong());
+        assertEquals(Long.MIN_VALUE, new JsonReader().reset("-9223372036854775808").nextLong());
+        assertEquals(0, new JsonReader().reset("-0").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().reset("9223372036854775808").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().reset("-9223372036854775809").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().reset("2147483648").nextInt());
+        assertEquals(Integer.MIN_VALUE, new JsonReader().reset("-2147483648").nextInt());
+    }
+    
+    @Test
+    void rejectsNumbersThatAreNotIntegers() {
+        for (String number : new String[] { "1.5", "1e3", "01", "-", "+1", "" }) {
+            assertThrows(IllegalArgumentException.class, () -> new JsonReader().reset(number).nextLong(), number);
+        }
+    }
+    
+    @Test
+    void rejectsMalformedStructure() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            JsonReader json = new JsonReader().reset("{\"a\":1 \"b\":2}");
+            json.beginObject();
+            json.hasNext();
+            json.nextName();
+            json.nextLong();
+            json.hasNext();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            JsonReader json = new JsonReader().reset("{} x");
+            json.beginObject();
+            json.endObject();
+            json.endDocument();
+        });
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().reset("[".repeat(100)).skipValue());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().reset("nul").skipValue());
+    }
+    
+    private static String read(String json) {
+        JsonReader reader = new JsonReader().reset(json);
+        String value = reader.nextString();
+        reader.endDocument();
+        return value;
+    }
+    
+    private static void assertMalformed(String json) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> read(json), json);
+        assertTrue(e.getMessage().startsWith("Malformed JSON at offset"), e.getMessage());
+    }
+}
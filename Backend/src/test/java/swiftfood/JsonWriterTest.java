@@ -0,0 +1,113 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class JsonWriterTest {
+    @Test
+    void escapesEveryAsciiCharacterAndReadsItBack() {
+        StringBuilder ascii = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) ascii.append(c);
+        String json = new JsonWriter().value(ascii.toString()).toString();
+        
+        for (int i = 1; i < json.length() - 1; i++) {
+            assertTrue(json.charAt(i) >= 0x20, "raw control character at " + i);
+        }
+        assertTrue(json.contains("\\u0000") && json.contains("\\u001f") && json.contains("\\n"), json);
+        assertTrue(json.contains("\\\"") && json.contains("\\\\"), json);
+        assertEquals(ascii.toString(), readString(json));
+    }
+    
+    @Test
+    void encodesUnicodeAsUtf8() {
+        String[] samples = { "Pizza 🍕 and crêpes", "日本語", "߿ࠀ￿", "emoji at end 🎉", "🍕" };
+        for (String sample : samples) {
+            JsonWriter writer = new JsonWriter().value(sample);
+            byte[] expected = ("\"" + sample + "\"").getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, writer.toByteArray(), sample);
+            assertEquals(new String(expected, StandardCharsets.UTF_8), writer.toString());
+        }
+        // Unpaired surrogates become U+FFFD
+        assertEquals("\"a\ufffdb\ufffdc\ufffd\"", new JsonWriter().value("a\ud83cb\udf55c\ud83c").toString());
+        assertEquals("Pizza 🍕 and crêpes", readString(new JsonWriter().value("Pizza 🍕 and crêpes").toString()));
+    }
+    
+    @Test
+    void roundTripsRandomStrings() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2_000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                int codePoint;
+                switch (random.nextInt(4)) {
+                    case 0: codePoint = random.nextInt(0x80); break;
+                    case 1: codePoint = 0x80 + random.nextInt(0x800 - 0x80); break;
+                    case 2: codePoint = 0xE000 + random.nextInt(0x10000 - 0xE000); break;
+                    default: codePoint = 0x10000 + random.nextInt(0x110000 - 0x10000);
+                }
+                text.appendCodePoint(codePoint);
+            }
+            String value = text.toString();
+            assertEquals(value, readString(new JsonWriter().value(value).toString()), "round " + round);
+        }
+    }
+    
+    @Test
+    void placesCommasAndWritesNumbers() {
+        JsonWriter writer = new JsonWriter()
+                .beginObject()
+                .name("a").value(0)
+                .name("b").value(-42)
+                .name("min").value(Long.MIN_VALUE)
+                .name("max").value(Long.MAX_VALUE)
+                .name("list").beginArray().value(true).value(false).value((String) null)
+                .beginObject().endObject().beginArray().endArray().endArray()
+                .name("raw").rawValue("{\"x\":1}".getBytes(StandardCharsets.US_ASCII))
+                .endObject();
+        assertEquals("{\"a\":0,\"b\":-42,\"min\":-9223372036854775808,\"max\":9223372036854775807,"
+                + "\"list\":[true,false,null,{},[]],\"raw\":{\"x\":1}}", writer.toString());
+        
+        JsonReader reader = new JsonReader().reset(writer.toString());
+        reader.beginObject();
+        assertTrue(reader.hasNext());
+        assertEquals("a", reader.nextName());
+        assertEquals(0, reader.nextLong());
+        assertTrue(reader.hasNext());
+        assertEquals("b", reader.nextName());
+        assertEquals(-42, reader.nextLong());
+        assertTrue(reader.hasNext());
+        assertEquals("min", reader.nextName());
+        reader.skipValue();
+        assertTrue(reader.hasNext());
+        assertEquals("max", reader.nextName());
+        assertEquals(Long.MAX_VALUE, reader.nextLong());
+    }
+    
+    @Test
+    void resetStartsAFreshDocument() {
+        JsonWriter writer = JsonWriter.local().beginArray().value("x".repeat(300_000)).endArray();
+        assertTrue(writer.size() > 300_000);
+        assertSame(writer, JsonWriter.local());
+        assertEquals(0, writer.size());
+        assertEquals("[1,2]", writer.beginArray().value(1).value(2).endArray().toString());
+    }
+    
+    @Test
+    void refusesToNestTooDeeply() {
+        JsonWriter writer = new JsonWriter();
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 100; i++) writer.beginArray();
+        });
+    }
+    
+    private static String readString(String json) {
+        JsonReader reader = new JsonReader().reset(json);
+        String value = reader.nextString();
+        reader.endDocument();
+        return value;
+    }
+}
@@ -0,0 +1,145 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ranks and top lists checked against sorting every player. Scores span
+ * both the exact buckets and the wide ones above them.
+ */
+class LeaderboardTest {
+    private static final int PLAYERS = 2_000;
+    private static final int CHANGES = 20_000;
+    
+    @Test
+    void matchesABruteForceRankingUnderRandomChanges() {
+        Random random = new Random(11);
+        Leaderboard leaderboard = new Leaderboard();
+        List<PlayerData> ranked = new ArrayList<>();
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        for (int i = 0; i < PLAYERS; i++) {
+            PlayerData player = new PlayerData(ids.nextId());
+            leaderboard.add(player);
+            ranked.add(player);
+        }
+        
+        for (int i = 0; i < CHANGES; i++) {
+            PlayerData player = ranked.get(random.nextInt(ranked.size()));
+            switch (random.nextInt(6)) {
+                case 0: player.addXP(random.nextInt(50)); break;
+                case 1: player.addXP(random.nextInt(5_000_000)); break;
+                case 2: player.addCoins(random.nextInt(200) - 100); break;
+                case 3: player.addCoins(random.nextInt(50_000_000)); break;
+                case 4:
+                    leaderboard.remove(player);
+                    ranked.remove(player);
+                    break;
+                default:
+                    PlayerData added = new PlayerData(ids.nextId());
+                    added.addCoins(random.nextInt(1_000));
+                    leaderboard.add(added);
+                    ranked.add(added);
+            }
+        }
+        
+        assertEquals(ranked.size(), leaderboard.size());
+        for (Leaderboard.Metric metric : Leaderboard.Metric.values()) {
+            assertMatchesBruteForce(leaderboard, metric, ranked);
+        }
+        PlayerData removed = ranked.get(0);
+        leaderboard.remove(removed);
+        assertEquals(0, leaderboard.rank(Leaderboard.Metric.XP, removed));
+    }
+    
+    @Test
+    void bulkLoadRanksLikeAddingOneByOne() {
+        Random random = new Random(5);
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        List<PlayerData> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            PlayerData player = new PlayerData(ids.nextId());
+            player.addXP(random.nextInt(i % 2 == 0 ? 1_000 : 10_000_000));
+            player.addCoins(random.nextInt(1_000_000));
+            players.add(player);
+        }
+        Leaderboard loaded = new Leaderboard();
+        Leaderboard.Loader loader = loaded.loader();
+        players.forEach(loader::add);
+        loader.finish();
+        players.forEach(loaded::attach);
+        
+        for (Leaderboard.Metric metric : Leaderboard.Metric.values()) {
+            assertMatchesBruteForce(loaded, metric, players);
+        }
+        // Attached players keep being re-ranked
+        players.get(0).addXP(100_000_000);
+        assertEquals(1, loaded.rank(Leaderboard.Metric.XP, players.get(0)));
+        assertEquals(players.get(0).getKey(), loaded.top(Leaderboard.Metric.XP, 1).get(0).getKey());
+    }
+    
+    @Test
+    void detachedPlayersKeepTheirPlace() {
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        Leaderboard leaderboard = new Leaderboard();
+        PlayerData cold = new PlayerData(ids.nextId());
+        cold.addXP(500);
+        leaderboard.add(cold);
+        leaderboard.detach(cold);
+        
+        PlayerData hot = new PlayerData(ids.nextId());
+        hot.addXP(100);
+        leaderboard.add(hot);
+        assertEquals(2, leaderboard.rank(Leaderboard.Metric.XP, hot));
+        assertEquals(cold.getKey(), leaderboard.top(Leaderboard.Metric.XP, 2).get(0).getKey());
+        
+        leaderboard.attach(cold);
+        assertEquals(1, leaderboard.rank(Leaderboard.Metric.XP, cold));
+        assertEquals(2, leaderboard.size());
+    }
+    
+    @Test
+    void bucketsAreOrderedAndBoundedByTheirMaximum() {
+        Random random = new Random(3);
+        long previousScore = 0;
+        int previousBucket = Leaderboard.BucketCounts.bucketOf(0);
+        for (int i = 0; i < 100_000; i++) {
+            long score = previousScore + 1 + (random.nextInt(4) == 0 ? random.nextInt(1 << 20) : random.nextInt(8));
+            int bucket = Leaderboard.BucketCounts.bucketOf(score);
+            assertTrue(bucket >= previousBucket, "bucket order at " + score);
+            assertTrue(bucket < Leaderboard.BucketCounts.BUCKETS, "bucket range at " + score);
+            assertTrue(Leaderboard.BucketCounts.maxOf(bucket) >= score, "bucket max at " + score);
+            assertEquals(bucket, Leaderboard.BucketCounts.bucketOf(Leaderboard.BucketCounts.maxOf(bucket)));
+            previousScore = score;
+            previousBucket = bucket;
+        }
+        int last = Leaderboard.BucketCounts.bucketOf(Long.MAX_VALUE);
+        assertEquals(Leaderboard.BucketCounts.BUCKETS - 1, last);
+        assertEquals(Long.MAX_VALUE, Leaderboard.BucketCounts.maxOf(last));
+    }
+    
+    private static void assertMatchesBruteForce(Leaderboard leaderboard, Leaderboard.Metric metric, List<PlayerData> players) {
+        List<PlayerData> sorted = new ArrayList<>(players);
+        sorted.sort(Comparator.comparingLong((PlayerData p) -> leaderboard.score(metric, p)).reversed()
+                .thenComparingLong(PlayerData::getKey));
+        
+        List<Leaderboard.Entry> top = leaderboard.top(metric, Leaderboard.MAX_LIMIT);
+        assertEquals(Math.min(Leaderboard.MAX_LIMIT, sorted.size()), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            PlayerData expected = sorted.get(i);
+            assertEquals(expected.getKey(), top.get(i).getKey(), metric + " top " + i);
+            assertEquals(leaderboard.score(metric, expected), top.get(i).getScore(), metric + " top " + i);
+        }
+        
+        long[] scores = new long[sorted.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = leaderboard.score(metric, sorted.get(i));
+        }
+        int above = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i > 0 && scores[i] != scores[i - 1]) above = i;
+            assertEquals(above + 1, leaderboard.rank(metric, sorted.get(i)), metric + " rank of " + sorted.get(i).getPlayerId());
+        }
+    }
+}
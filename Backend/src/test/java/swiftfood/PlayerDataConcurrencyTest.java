@@ -0,0 +1,77 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Many threads changing one player at once: every change must land exactly
+ * once, and no reader may see a level and xp that do not belong together.
+ */
+class PlayerDataConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20_000;
+    private static final int XP_PER_ROUND = 7;
+    private static final int COINS_PER_ROUND = 3;
+    
+    @Test
+    void concurrentUpdatesKeepExactTotals() throws Exception {
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        PlayerData player = new PlayerData(ids.nextId());
+        int startCoins = player.getCoins();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> inconsistent = new AtomicReference<>();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ROUNDS; i++) {
+                        player.addXP(XP_PER_ROUND);
+                        player.addCoins(COINS_PER_ROUND);
+                        player.completeTask();
+                    }
+                    return null;
+                }));
+            }
+            // Reads whole states while the writers run
+            Future<?> reader = pool.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    PlayerData.State s = player.getState();
+                    if (s.level < 1 || s.xp < 0 || s.xp >= s.level * PlayerData.XP_PER_LEVEL) {
+                        inconsistent.compareAndSet(null, "level " + s.level + " with xp " + s.xp);
+                    }
+                }
+                return null;
+            });
+            
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        long rounds = (long) THREADS * ROUNDS;
+        assertNull(inconsistent.get(), "reader saw an inconsistent state");
+        assertEquals(startCoins + rounds * COINS_PER_ROUND, player.getCoins());
+        assertEquals(rounds, player.getCompletedTasks());
+        assertEquals(rounds * XP_PER_ROUND, player.getTotalXp());
+        assertTrue(player.getXp() < player.getLevel() * PlayerData.XP_PER_LEVEL);
+        
+        // The same XP gained in one go ends on the same level and xp
+        PlayerData sequential = new PlayerData(ids.nextId());
+        sequential.addXP((int) (rounds * XP_PER_ROUND));
+        assertEquals(sequential.getLevel(), player.getLevel());
+        assertEquals(sequential.getXp(), player.getXp());
+    }
+}
@@ -0,0 +1,66 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+
+class PlayerIdGeneratorTest {
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50_000;
+    
+    @Test
+    void concurrentCallersNeverGetTheSameKey() throws Exception {
+        PlayerIdGenerator ids = new PlayerIdGenerator(5);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> batches = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                batches.add(pool.submit(() -> {
+                    long[] keys = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = ids.nextKey();
+                    }
+                    return keys;
+                }));
+            }
+            Set<Long> seen = new HashSet<>();
+            for (Future<long[]> batch : batches) {
+                long previous = 0;
+                for (long key : batch.get(60, TimeUnit.SECONDS)) {
+                    assertTrue(key > previous, "keys from one thread must increase");
+                    assertTrue(seen.add(key), "duplicate key " + key);
+                    previous = key;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    @Test
+    void parsesWhatItFormats() {
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        for (int i = 0; i < 1_000; i++) {
+            long key = ids.nextKey();
+            assertEquals(key, PlayerIdGenerator.parse(PlayerIdGenerator.format(key)));
+        }
+        assertEquals(Long.MAX_VALUE, PlayerIdGenerator.parse("player_" + Long.MAX_VALUE));
+        assertEquals(42, PlayerIdGenerator.parse("/api/player/player_42/x", 12, 21));
+    }
+    
+    @Test
+    void rejectsMalformedIds() {
+        for (String id : new String[] { "", "player_", "player_0", "player_007", "player_-1", "player_12a",
+                "Player_12", "user_12", "player_9223372036854775808", "player_99999999999999999999" }) {
+            assertEquals(-1, PlayerIdGenerator.parse(id), id);
+        }
+    }
+    
+    @Test
+    void rejectsNodesOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new PlayerIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new PlayerIdGenerator(1024));
+    }
+}
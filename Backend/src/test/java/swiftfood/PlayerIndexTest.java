@@ -0,0 +1,117 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PlayerIndex against a HashMap under the same random operations. A small
+ * key range keeps probe runs long, so removals exercise the backward shift,
+ * and the index grows through several resizes.
+ */
+class PlayerIndexTest {
+    private static final int OPERATIONS = 300_000;
+    private static final int KEY_RANGE = 20_000;
+    
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        PlayerData[] values = players(16);
+        PlayerIndex index = new PlayerIndex();
+        Map<Long, PlayerData> expected = new HashMap<>();
+        Random random = new Random(42);
+        
+        for (int i = 0; i < OPERATIONS; i++) {
+            long key = 1 + random.nextInt(KEY_RANGE);
+            int op = random.nextInt(10);
+            if (op < 5) {
+                PlayerData value = values[random.nextInt(values.length)];
+                assertSame(expected.put(key, value), index.put(key, value), "put " + key);
+            } else if (op < 8) {
+                assertSame(expected.remove(key), index.remove(key), "remove " + key);
+            } else {
+                assertSame(expected.get(key), index.get(key), "get " + key);
+            }
+        }
+        
+        assertEquals(expected.size(), index.size());
+        for (long key = 1; key <= KEY_RANGE; key++) {
+            assertSame(expected.get(key), index.get(key), "get " + key);
+        }
+        Map<String, Integer> visited = new HashMap<>();
+        index.forEach(player -> visited.merge(player.getPlayerId(), 1, Integer::sum));
+        Map<String, Integer> counts = new HashMap<>();
+        expected.values().forEach(player -> counts.merge(player.getPlayerId(), 1, Integer::sum));
+        assertEquals(counts, visited);
+    }
+    
+    @Test
+    void growsAndEmptiesWithSnowflakeKeys() {
+        PlayerIdGenerator ids = new PlayerIdGenerator(3);
+        PlayerData player = players(1)[0];
+        PlayerIndex index = new PlayerIndex();
+        long[] keys = new long[100_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ids.nextKey();
+            assertNull(index.put(keys[i], player));
+        }
+        assertEquals(keys.length, index.size());
+        for (long key : keys) {
+            assertSame(player, index.remove(key));
+        }
+        assertEquals(0, index.size());
+        assertNull(index.sample(new Random(1)));
+    }
+    
+    @Test
+    void rejectsTheEmptyKey() {
+        PlayerIndex index = new PlayerIndex();
+        assertThrows(IllegalArgumentException.class, () -> index.put(0, players(1)[0]));
+        assertNull(index.get(0));
+        assertNull(index.remove(0));
+    }
+    
+    @Test
+    void readersNeverMissAStableKeyWhileOthersResize() throws Exception {
+        PlayerData stable = players(1)[0];
+        PlayerIndex index = new PlayerIndex();
+        long[] stableKeys = new long[1_000];
+        for (int i = 0; i < stableKeys.length; i++) {
+            stableKeys[i] = i + 1;
+            index.put(stableKeys[i], stable);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (long key = 1_000_000; key < 1_200_000; key++) {
+                    index.put(key, stable);
+                    if ((key & 1) == 0) index.remove(key - 1);
+                }
+                return null;
+            });
+            Future<Integer> reader = pool.submit(() -> {
+                int misses = 0;
+                while (!writer.isDone()) {
+                    for (long key : stableKeys) {
+                        if (index.get(key) != stable) misses++;
+                    }
+                }
+                return misses;
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            assertEquals(0, reader.get(60, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static PlayerData[] players(int count) {
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        PlayerData[] players = new PlayerData[count];
+        for (int i = 0; i < count; i++) {
+            players[i] = new PlayerData(ids.nextId());
+        }
+        return players;
+    }
+}
@@ -0,0 +1,61 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PlayerJournalTest {
+    @TempDir
+    Path directory;
+    
+    @Test
+    void replaysEveryGenerationInOrder() throws IOException {
+        writeTwoGenerations();
+        List<Integer> values = new ArrayList<>();
+        long records = PlayerJournal.replay(directory, 0, (type, timestamp, playerId, value, text) -> values.add(value));
+        assertEquals(6, records);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), values);
+    }
+    
+    @Test
+    void truncatesATornTailInTheNewestLog() throws IOException {
+        writeTwoGenerations();
+        Path newest = PlayerJournal.logPath(directory, 1);
+        long intact = Files.size(newest);
+        Files.write(newest, new byte[] { 0, 0, 0, 40, 7, 7 }, StandardOpenOption.APPEND);
+        
+        List<Integer> values = new ArrayList<>();
+        PlayerJournal.replay(directory, 0, (type, timestamp, playerId, value, text) -> values.add(value));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), values);
+        assertEquals(intact, Files.size(newest));
+    }
+    
+    @Test
+    void refusesCorruptionInAnOlderLog() throws IOException {
+        writeTwoGenerations();
+        Path older = PlayerJournal.logPath(directory, 0);
+        byte[] bytes = Files.readAllBytes(older);
+        bytes[bytes.length - 1] ^= 0x5A; // the last record's checksum
+        Files.write(older, bytes);
+        
+        IOException e = assertThrows(IOException.class,
+                () -> PlayerJournal.replay(directory, 0, (type, timestamp, playerId, value, text) -> { }));
+        assertTrue(e.getMessage().contains("Corrupt journal"), e.getMessage());
+        assertEquals(bytes.length, Files.size(older), "an older log must be left as it was");
+    }
+    
+    /** Records 1-3 in generation 0 and 4-6 in generation 1. */
+    private void writeTwoGenerations() throws IOException {
+        String playerId = new PlayerIdGenerator(0).nextId();
+        try (PlayerJournal journal = new PlayerJournal(directory, 0, false)) {
+            for (int value = 1; value <= 6; value++) {
+                journal.awaitDurable(journal.append(PlayerJournal.ADD_XP, value, playerId, value));
+                if (value == 3) journal.rotate();
+            }
+        }
+    }
+}
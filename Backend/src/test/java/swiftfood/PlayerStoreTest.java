@@ -0,0 +1,129 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PlayerStoreTest {
+    private static final int MAX_HOT = 4;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void peekReadsColdPlayersWithoutLoadingThem() throws IOException {
+        try (PlayerStore store = openStore()) {
+            List<PlayerData> created = createPlayers(store, MAX_HOT * 3);
+            assertTrue(store.getColdSize() > 0, "some players should have been evicted");
+            int hot = store.getHotSize();
+            long loads = store.getLoads();
+            long evictions = store.getEvictions();
+            
+            for (PlayerData player : created) {
+                PlayerData seen = store.peek(player.getKey());
+                assertNotNull(seen);
+                assertEquals(player.getPlayerId(), seen.getPlayerId());
+                assertEquals(player.getPlayerName(), seen.getPlayerName());
+            }
+            assertEquals(hot, store.getHotSize());
+            assertEquals(loads, store.getLoads());
+            assertEquals(evictions, store.getEvictions());
+            assertNull(store.peek(Long.MAX_VALUE));
+        }
+    }
+    
+    @Test
+    void evictsToTheLimitAndLoadsPlayersBack() throws IOException {
+        try (PlayerStore store = openStore()) {
+            List<PlayerData> created = createPlayers(store, 50);
+            assertEquals(MAX_HOT, store.getHotSize());
+            assertEquals(50 - MAX_HOT, store.getColdSize());
+            assertEquals(50, store.size());
+            
+            long loads = store.getLoads();
+            for (PlayerData player : created) {
+                PlayerData loaded = store.get(player.getKey());
+                assertEquals(player.getPlayerName(), loaded.getPlayerName());
+                assertTrue(store.getHotSize() <= MAX_HOT);
+            }
+            assertTrue(store.getLoads() > loads, "cold players are loaded");
+            assertEquals(50, store.size());
+            assertNull(store.get(Long.MAX_VALUE));
+        }
+    }
+    
+    @Test
+    void changesToEvictedPlayersAreKept() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (PlayerStore store = openStore()) {
+            List<PlayerData> created = createPlayers(store, 20);
+            // Every player has been evicted at least once by now; the stale
+            // references must still reach the store's copy
+            for (int round = 1; round <= 3; round++) {
+                for (PlayerData player : created) {
+                    store.addXP(player, 30);
+                    store.addCoins(player, 5);
+                }
+            }
+            for (PlayerData player : created) {
+                ids.add(player.getPlayerId());
+                PlayerData current = store.get(player.getKey());
+                assertEquals(90, current.getTotalXp(), player.getPlayerId());
+                assertEquals(115, current.getCoins(), player.getPlayerId());
+            }
+            
+            PlayerData deleted = created.get(0);
+            assertFalse(store.getHotSize() > MAX_HOT);
+            assertNotNull(store.delete(deleted));
+            assertFalse(store.exists(deleted.getKey()));
+            assertNull(store.get(deleted.getKey()));
+            assertNull(store.peek(deleted.getKey()));
+        }
+        
+        // Hot and cold players both survive a restart
+        try (PlayerStore store = openStore()) {
+            assertEquals(ids.size() - 1, store.size());
+            for (String id : ids.subList(1, ids.size())) {
+                PlayerData player = store.get(id);
+                assertNotNull(player, id);
+                assertEquals(90, player.getTotalXp(), id);
+            }
+        }
+    }
+    
+    @Test
+    void coldPlayersStayRanked() throws IOException {
+        try (PlayerStore store = openStore()) {
+            List<PlayerData> created = createPlayers(store, 12);
+            for (int i = 0; i < created.size(); i++) {
+                store.addXP(created.get(i), 10 * (i + 1));
+            }
+            assertTrue(store.getColdSize() > 0);
+            List<Leaderboard.Entry> top = store.getLeaderboard().top(Leaderboard.Metric.XP, created.size());
+            assertEquals(created.size(), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals(created.get(created.size() - 1 - i).getKey(), top.get(i).getKey());
+            }
+        }
+    }
+    
+    private PlayerStore openStore() throws IOException {
+        return new PlayerStore(directory, false, Long.MAX_VALUE, Long.MAX_VALUE, MAX_HOT);
+    }
+    
+    private static List<PlayerData> createPlayers(PlayerStore store, int count) {
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        List<PlayerData> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PlayerData player = new PlayerData(ids.nextId());
+            player.setPlayerName("Cook " + i);
+            store.create(player);
+            created.add(player);
+        }
+        return created;
+    }
+}
@@ -0,0 +1,92 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class PlayerUpdateTest {
+    @Test
+    void setsOnlyTheFieldsPresent() {
+        PlayerUpdate update = PlayerUpdate.parse("{\"playerName\":\"  Chef  \",\"coins\":250,"
+                + "\"achievements\":{\"first_task\":true,\"level_5\":false},\"playerId\":\"player_1\",\"createdAt\":1}");
+        assertTrue(update.has(PlayerUpdate.NAME));
+        assertTrue(update.has(PlayerUpdate.COINS));
+        assertFalse(update.has(PlayerUpdate.LEVEL));
+        assertFalse(update.has(PlayerUpdate.XP));
+        assertEquals("Chef", update.getPlayerName());
+        assertEquals(250, update.getCoins());
+        assertEquals(List.of("first_task"), update.getUnlockedAchievements());
+        assertFalse(update.isEmpty());
+        assertTrue(PlayerUpdate.parse("{}").isEmpty());
+    }
+    
+    @Test
+    void enforcesBounds() {
+        assertValid("{\"level\":1,\"xp\":0,\"coins\":0,\"currentLevel\":1}");
+        assertValid("{\"level\":" + PlayerData.MAX_LEVEL + ",\"coins\":" + PlayerData.MAX_COINS + "}");
+        assertInvalid("{\"level\":0}");
+        assertInvalid("{\"level\":" + (PlayerData.MAX_LEVEL + 1) + "}");
+        assertInvalid("{\"currentLevel\":0}");
+        assertInvalid("{\"xp\":-1}");
+        assertInvalid("{\"xp\":" + PlayerData.MAX_LEVEL * PlayerData.XP_PER_LEVEL + "}");
+        assertInvalid("{\"coins\":-1}");
+        assertInvalid("{\"coins\":" + (PlayerData.MAX_COINS + 1L) + "}");
+        assertInvalid("{\"completedTasks\":-1}");
+        assertInvalid("{\"level\":2147483648}");
+        assertInvalid("{\"playerName\":\"   \"}");
+        assertInvalid("{\"playerName\":\"" + "x".repeat(PlayerUpdate.MAX_NAME_LENGTH + 1) + "\"}");
+        assertInvalid("{\"isAdmin\":true}");
+        assertInvalid("{\"level\":1} {}");
+    }
+    
+    @Test
+    void checksXpAgainstTheLevelItWillHave() {
+        PlayerUpdate xpOnly = PlayerUpdate.parse("{\"xp\":250}");
+        assertThrows(IllegalArgumentException.class, () -> xpOnly.checkAgainst(2, 0));
+        xpOnly.checkAgainst(3, 0);
+        
+        PlayerUpdate levelOnly = PlayerUpdate.parse("{\"level\":1}");
+        assertThrows(IllegalArgumentException.class, () -> levelOnly.checkAgainst(5, 150));
+        levelOnly.checkAgainst(5, 99);
+        
+        PlayerUpdate both = PlayerUpdate.parse("{\"level\":4,\"xp\":399}");
+        both.checkAgainst(1, 0);
+        PlayerUpdate.parse("{\"coins\":5}").checkAgainst(1, 99_999);
+    }
+    
+    @Test
+    void createMayOnlyNameThePlayer() {
+        assertNull(PlayerUpdate.parsePlayerName(null));
+        assertNull(PlayerUpdate.parsePlayerName("  "));
+        assertNull(PlayerUpdate.parsePlayerName("{}"));
+        assertEquals("Chef", PlayerUpdate.parsePlayerName("{\"playerName\":\"Chef\"}"));
+        assertThrows(IllegalArgumentException.class, () -> PlayerUpdate.parsePlayerName("{\"coins\":5}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> PlayerUpdate.parsePlayerName("{\"achievements\":{\"first_task\":true}}"));
+    }
+    
+    @Test
+    void levelUpsStopAtTheMaximumLevel() {
+        PlayerData player = new PlayerData(new PlayerIdGenerator(0).nextId());
+        // About five billion XP reaches the top level; gain more than that
+        for (int i = 0; i < 4; i++) {
+            player.addXP(Integer.MAX_VALUE);
+        }
+        assertEquals(PlayerData.MAX_LEVEL, player.getLevel());
+        assertTrue(player.getXp() >= 0 && player.getXp() < PlayerData.MAX_LEVEL * PlayerData.XP_PER_LEVEL);
+        
+        player.addCoins(Integer.MAX_VALUE);
+        assertEquals(PlayerData.MAX_COINS, player.getCoins());
+        player.addCoins(Integer.MIN_VALUE);
+        assertEquals(0, player.getCoins());
+    }
+    
+    private static void assertValid(String body) {
+        assertDoesNotThrow(() -> PlayerUpdate.parse(body), body);
+    }
+    
+    private static void assertInvalid(String body) {
+        assertThrows(IllegalArgumentException.class, () -> PlayerUpdate.parse(body), body);
+    }
+}
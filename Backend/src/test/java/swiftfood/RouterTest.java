@@ -0,0 +1,104 @@
+package swiftfood;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class RouterTest {
+    private static final Router.Handler OK = (request, body) -> HttpResponse.json(new JsonWriter());
+    
+    private final Router router = new Router()
+            .get("/api/levels", OK)
+            .get("/api/player/{playerId}", OK)
+            .put("/api/player/{playerId}", OK)
+            .get("/api/player/{playerId}/events", OK)
+            .post("/api/player/{playerId}/complete-task", OK)
+            .get("/api/player/top", OK)
+            .get("/api/teams/{teamId}/members/{memberId}", OK);
+    
+    @Test
+    void matchesLiteralRoutes() {
+        HttpRequestParser request = request("GET", "/api/levels?refresh=1");
+        Router.Route route = router.match(request);
+        assertEquals("/api/levels", route.getPattern());
+        assertSame(OK, route.handler("GET"));
+        assertEquals(0, request.pathParamCount());
+    }
+    
+    @Test
+    void capturesPathParameters() {
+        HttpRequestParser request = request("POST", "/api/player/player_42/complete-task");
+        assertEquals("/api/player/{playerId}/complete-task", router.match(request).getPattern());
+        assertEquals(1, request.pathParamCount());
+        assertEquals("player_42", request.pathParam(0).toString());
+        
+        HttpRequestParser team = request("GET", "/api/teams/red/members/7");
+        assertEquals("/api/teams/{teamId}/members/{memberId}", router.match(team).getPattern());
+        assertEquals(2, team.pathParamCount());
+        assertEquals("red", team.pathParam(0).toString());
+        assertEquals("7", team.pathParam(1).toString());
+        
+        // Parameters from an earlier match on the same connection are cleared
+        team.reset();
+        reparse(team, "GET", "/api/levels");
+        router.match(team);
+        assertEquals(0, team.pathParamCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> team.pathParam(0));
+    }
+    
+    @Test
+    void prefersLiteralsAndFallsBackToParameters() {
+        HttpRequestParser request = request("GET", "/api/player/top");
+        assertEquals("/api/player/top", router.match(request).getPattern());
+        assertEquals(0, request.pathParamCount());
+        
+        // "top" matches the literal first, but only the parameter branch has /events below it
+        request = request("GET", "/api/player/top/events");
+        assertEquals("/api/player/{playerId}/events", router.match(request).getPattern());
+        assertEquals("top", request.pathParam(0).toString());
+    }
+    
+    @Test
+    void missesUnknownPaths() {
+        for (String path : new String[] { "/", "/api", "/api/", "/api/levels/", "/api/levelsx", "/api/player",
+                "/api/player/", "/api/player//events", "/api/player/p/unknown", "api/levels", "/API/levels" }) {
+            HttpRequestParser request = request("GET", path);
+            assertNull(router.match(request), path);
+            assertEquals(0, request.pathParamCount(), path);
+        }
+    }
+    
+    @Test
+    void routesWithoutTheMethodAnswer405() {
+        Router.Route route = router.match(request("DELETE", "/api/player/player_1"));
+        assertNotNull(route);
+        assertNull(route.handler("DELETE"), "no DELETE handler, so the server answers 405");
+        assertNull(route.handler("PATCH"));
+        assertSame(OK, route.handler("GET"));
+        assertSame(OK, route.handler("PUT"));
+    }
+    
+    @Test
+    void rejectsBadPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> new Router().get("api/levels", OK));
+        assertThrows(IllegalArgumentException.class, () -> new Router().get("/api//levels", OK));
+        assertThrows(IllegalArgumentException.class, () -> new Router().get("/api/levels/", OK));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api/player/{id}", OK));
+        assertThrows(IllegalArgumentException.class, () -> new Router().get("/{a}/{b}/{c}/{d}/{e}/{f}/{g}/{h}/{i}", OK));
+    }
+    
+    private static HttpRequestParser request(String method, String target) {
+        HttpRequestParser request = new HttpRequestParser();
+        reparse(request, method, target);
+        return request;
+    }
+    
+    private static void reparse(HttpRequestParser request, String method, String target) {
+        byte[] head = (method + " " + target + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(head.length);
+        buffer.put(head);
+        assertEquals(head.length, request.parse(buffer));
+    }
+}
@@ -0,0 +1,240 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The request paths as the server had them before the byte-buffer parser,
+ * JsonWriter and the route trie replaced them, copied here so the benchmarks
+ * can measure old and new side by side. Nothing in the server uses these.
+ */
+final class Baseline {
+    private Baseline() {
+    }
+    
+    /** A request line and headers read the old way. */
+    static final class Request {
+        final String method;
+        final String path;
+        final Map<String, String> headers;
+        
+        Request(String method, String path, Map<String, String> headers) {
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+        }
+    }
+    
+    /** A route label for metrics and the player ID its handler would get. */
+    static final class Route {
+        final String pattern;
+        final String playerId;
+        
+        Route(String pattern, String playerId) {
+            this.pattern = pattern;
+            this.playerId = playerId;
+        }
+    }
+    
+    /**
+     * Reads a request head with a BufferedReader per connection, splitting
+     * the request line on spaces and each header on its colon.
+     */
+    static Request parseRequestHead(byte[] head) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(head)));
+        String requestLine = in.readLine();
+        if (requestLine == null) return null;
+        
+        String[] requestParts = requestLine.split(" ");
+        if (requestParts.length < 2) return null;
+        
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (line.contains(":")) {
+                String[] headerParts = line.split(":", 2);
+                headers.put(headerParts[0].trim(), headerParts[1].trim());
+            }
+        }
+        return new Request(requestParts[0], requestParts[1], headers);
+    }
+    
+    /**
+     * Labels the path for metrics, then finds the handler with a chain of
+     * startsWith and endsWith checks and cuts the player ID out with
+     * substring, as handleRequest did.
+     */
+    static Route route(String method, String path) {
+        String pattern = routeLabel(path);
+        String playerId = null;
+        switch (method) {
+            case "GET":
+                if (path.equals("/api/levels")) {
+                    break;
+                } else if (path.startsWith("/api/player/")) {
+                    playerId = path.substring(12);
+                }
+                break;
+            case "POST":
+                if (path.equals("/api/player") || path.equals("/api/events")) {
+                    break;
+                } else if (path.startsWith("/api/player/") && path.endsWith("/complete-task")) {
+                    playerId = path.substring(12, path.length() - 14);
+                } else if (path.startsWith("/api/player/") && path.endsWith("/complete-level")) {
+                    playerId = path.substring(12, path.length() - 15);
+                }
+                break;
+            case "PUT":
+            case "DELETE":
+                if (path.startsWith("/api/player/")) {
+                    playerId = path.substring(12);
+                }
+                break;
+            default:
+                return null;
+        }
+        return new Route(pattern, playerId);
+    }
+    
+    private static String routeLabel(String path) {
+        switch (path) {
+            case "/api/levels": case "/api/leaderboard": case "/api/health": case "/api/metrics":
+            case "/api/player": case "/api/events":
+                return path;
+        }
+        if (path.startsWith("/api/player/")) {
+            if (path.endsWith("/complete-task")) return "/api/player/{id}/complete-task";
+            if (path.endsWith("/complete-level")) return "/api/player/{id}/complete-level";
+            return "/api/player/{id}";
+        }
+        return "other";
+    }
+    
+    /** The level catalog built as one String from each level's and task's own String. */
+    static byte[] levelsJson(List<LevelData> levels) {
+        StringBuilder response = new StringBuilder();
+        response.append("{\"levels\":[");
+        
+        boolean first = true;
+        for (LevelData level : levels) {
+            if (!first) response.append(",");
+            response.append(levelJson(level));
+            first = false;
+        }
+        
+        response.append("]}");
+        return response.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static String levelJson(LevelData level) {
+        StringBuilder json = new StringBuilder();
+        json.append("{");
+        json.append("\"levelId\":").append(level.getLevelId()).append(",");
+        json.append("\"title\":\"").append(level.getTitle()).append("\",");
+        json.append("\"icon\":\"").append(level.getIcon()).append("\",");
+        json.append("\"unlocked\":").append(level.isUnlocked()).append(",");
+        json.append("\"requiredLevel\":").append(level.getRequiredLevel()).append(",");
+        
+        // Add tasks
+        json.append("\"tasks\":[");
+        List<Task> tasks = level.getTasks();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0) json.append(",");
+            json.append(taskJson(tasks.get(i)));
+        }
+        json.append("]");
+        
+        json.append("}");
+        return json.toString();
+    }
+    
+    private static String taskJson(Task task) {
+        StringBuilder json = new StringBuilder();
+        json.append("{");
+        json.append("\"title\":\"").append(task.getTitle()).append("\",");
+        json.append("\"description\":\"").append(task.getDescription()).append("\",");
+        json.append("\"icon\":\"").append(task.getIcon()).append("\",");
+        json.append("\"xpReward\":").append(task.getXpReward()).append(",");
+        json.append("\"completed\":").append(false);
+        json.append("}");
+        return json.toString();
+    }
+    
+    /**
+     * A player held the old way, with Date fields and a map of achievement
+     * names, and its StringBuilder toJson.
+     */
+    static final class Player {
+        private final String playerId;
+        private final String playerName;
+        private final int level;
+        private final int xp;
+        private final int coins;
+        private final int currentLevel;
+        private final int completedTasks;
+        private final Map<String, Boolean> achievements = new HashMap<>();
+        private final Date createdAt;
+        private final Date lastPlayed;
+        
+        /** A new player, as the old constructor built one. */
+        Player(String playerId) {
+            this.playerId = playerId;
+            this.playerName = "Player_" + playerId.substring(7); // Remove "player_" prefix
+            this.level = 1;
+            this.xp = 0;
+            this.coins = 100;
+            this.currentLevel = 1;
+            this.completedTasks = 0;
+            this.createdAt = new Date();
+            this.lastPlayed = new Date();
+            for (int i = 0; i < Achievements.count(); i++) {
+                achievements.put(Achievements.name(i), false);
+            }
+        }
+        
+        /** A copy of a current player. */
+        Player(PlayerData player) {
+            this.playerId = player.getPlayerId();
+            this.playerName = player.getPlayerName();
+            this.level = player.getLevel();
+            this.xp = player.getXp();
+            this.coins = player.getCoins();
+            this.currentLevel = player.getCurrentLevel();
+            this.completedTasks = player.getCompletedTasks();
+            this.createdAt = new Date(player.getCreatedAt());
+            this.lastPlayed = new Date(player.getLastPlayed());
+            for (int i = 0; i < Achievements.count(); i++) {
+                String name = Achievements.name(i);
+                achievements.put(name, player.hasAchievement(name));
+            }
+        }
+        
+        String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{");
+            json.append("\"playerId\":\"").append(playerId).append("\",");
+            json.append("\"playerName\":\"").append(playerName).append("\",");
+            json.append("\"level\":").append(level).append(",");
+            json.append("\"xp\":").append(xp).append(",");
+            json.append("\"coins\":").append(coins).append(",");
+            json.append("\"currentLevel\":").append(currentLevel).append(",");
+            json.append("\"completedTasks\":").append(completedTasks).append(",");
+            json.append("\"createdAt\":\"").append(createdAt).append("\",");
+            json.append("\"lastPlayed\":\"").append(lastPlayed).append("\",");
+            
+            // Add achievements
+            json.append("\"achievements\":{");
+            boolean first = true;
+            for (Map.Entry<String, Boolean> entry : achievements.entrySet()) {
+                if (!first) json.append(",");
+                json.append("\"").append(entry.getKey()).append("\":").append(entry.getValue());
+                first = false;
+            }
+            json.append("}");
+            
+            json.append("}");
+            return json.toString();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Shared setup for the benchmarks: an embedded server with a throwaway data
+ * directory, and requests parsed the way the connection engines parse them.
+ */
+final class BenchmarkSupport {
+    private static final Pattern PLAYER_ID = Pattern.compile("\"playerId\":\"([^\"]+)\"");
+    
+    private BenchmarkSupport() {
+    }
+    
+    /**
+     * Sets the server's configuration for a benchmark run. Must be called
+     * before SwiftFoodServer is first used, since its settings are read once.
+     * Limits are off so that a benchmark measures the work, not the 429s,
+     * and the levels file points into the empty data directory so the
+     * bundled catalog is used whatever directory the run starts in.
+     */
+    static Path configure(int port) throws IOException {
+        Path dataDir = Files.createTempDirectory("swiftfood-bench");
+        System.setProperty("swiftfood.dataDir", dataDir.toString());
+        System.setProperty("swiftfood.levelsFile", dataDir.resolve("levels.json").toString());
+        System.setProperty("swiftfood.port", Integer.toString(port));
+        System.setProperty("swiftfood.journal.fsync", "false");
+        System.setProperty("swiftfood.rateLimit.addressPerSecond", "0");
+        System.setProperty("swiftfood.rateLimit.playerPerSecond", "0");
+        System.setProperty("swiftfood.workQueue.capacity", Integer.toString(64 * 1024));
+        return dataDir;
+    }
+    
+    /** Parses a complete request head, such as "GET / HTTP/1.1\r\n\r\n", into its own parser. */
+    static HttpRequestParser parse(String head) {
+        ByteBuffer buffer = ByteBuffer.allocate(head.length() + 1024);
+        buffer.put(head.getBytes(StandardCharsets.ISO_8859_1));
+        HttpRequestParser parser = new HttpRequestParser();
+        if (parser.parse(buffer) < 0) throw new IllegalArgumentException("Not a complete request head: " + head);
+        return parser;
+    }
+    
+    /** A router with the server's API routes, each going to a handler that does nothing. */
+    static Router apiRouter() {
+        Router.Handler handler = (request, body) -> null;
+        return new Router()
+                .get("/api/levels", handler)
+                .get("/api/leaderboard", handler)
+                .get("/api/health", handler)
+                .get("/api/metrics", handler)
+                .post("/api/player", handler)
+                .get("/api/player/{playerId}", handler)
+                .put("/api/player/{playerId}", handler)
+                .delete("/api/player/{playerId}", handler)
+                .post("/api/player/{playerId}/complete-task", handler)
+                .post("/api/player/{playerId}/complete-level", handler)
+                .post("/api/events", handler);
+    }
+    
+    /** A level catalog the same shape as the server's: four levels of three tasks. */
+    static List<LevelData> levels() {
+        List<LevelData> levels = new ArrayList<>();
+        for (int id = 1; id <= 4; id++) {
+            List<Task> tasks = new ArrayList<>();
+            for (int task = 0; task < 3; task++) {
+                tasks.add(new Task("Task " + task, "Do step " + task + " of level " + id, 20 + 5 * task));
+            }
+            levels.add(new LevelData(id, "Level " + id, "🍕", tasks));
+        }
+        return levels;
+    }
+    
+    static String bodyText(HttpResponse response) {
+        ByteBuffer body = response.getBody();
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /** Creates a player through the API and returns its ID. */
+    static String createPlayer(SwiftFoodServer server, String name) {
+        String body = "{\"playerName\":\"" + name + "\"}";
+        HttpResponse response = server.handleRequest(parse("POST /api/player HTTP/1.1\r\nContent-Length: "
+                + body.length() + "\r\n\r\n"), body, null);
+        Matcher matcher = PLAYER_ID.matcher(bodyText(response));
+        if (!matcher.find()) throw new IllegalStateException("Player was not created: " + bodyText(response));
+        return matcher.group(1);
+    }
+    
+    static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        try (var paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package swiftfood;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Whole requests through SwiftFoodServer.handleRequest, from a parsed head
+ * to a finished response: routing, the handler, compression and metrics,
+ * without the sockets. routeTrie and routeBaseline isolate the routing step
+ * for the same requests: the route trie against the startsWith and substring
+ * chain it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+    private static final String TASK_BODY = "{\"levelId\":1,\"taskIndex\":0}";
+    
+    private Path dataDir;
+    private SwiftFoodServer server;
+    private Router router;
+    
+    /** Each thread keeps its own parsed heads, as each connection does. */
+    @State(Scope.Thread)
+    public static class Requests {
+        HttpRequestParser getPlayer;
+        HttpRequestParser getLevels;
+        HttpRequestParser getLevelsGzip;
+        HttpRequestParser completeTask;
+        HttpRequestParser updatePlayer;
+        String updateBody;
+        HttpRequestParser notFound;
+        
+        @Setup
+        public void setUp(DispatchBenchmark benchmark) {
+            String playerId = BenchmarkSupport.createPlayer(benchmark.server, "Benchmark Chef");
+            getPlayer = BenchmarkSupport.parse("GET /api/player/" + playerId + " HTTP/1.1\r\n\r\n");
+            getLevels = BenchmarkSupport.parse("GET /api/levels HTTP/1.1\r\n\r\n");
+            getLevelsGzip = BenchmarkSupport.parse("GET /api/levels HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n");
+            completeTask = BenchmarkSupport.parse("POST /api/player/" + playerId + "/complete-task HTTP/1.1\r\n"
+                    + "Content-Length: " + TASK_BODY.length() + "\r\n\r\n");
+            // A client saving its whole player, echoing back what GET returned
+            updateBody = "{\"playerId\":\"" + playerId + "\",\"playerName\":\"Benchmark Chef\","
+                    + "\"level\":3,\"xp\":120,\"coins\":460,\"currentLevel\":2,\"completedTasks\":5,"
+                    + "\"createdAt\":\"Sat Oct 17 22:25:16 UTC 2026\",\"lastPlayed\":\"Sat Oct 17 22:41:03 UTC 2026\","
+                    + "\"achievements\":{\"First Steps\":true,\"Pizza Pro\":true,\"Speed Chef\":false,"
+                    + "\"Burger Master\":false,\"Noodle Ninja\":false,\"Dessert Wizard\":false}}";
+            updatePlayer = BenchmarkSupport.parse("PUT /api/player/" + playerId + " HTTP/1.1\r\n"
+                    + "Content-Type: application/json\r\n"
+                    + "Content-Length: " + updateBody.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n");
+            HttpResponse response = benchmark.server.handleRequest(updatePlayer, updateBody, null);
+            if (response.getStatus() != 200) {
+                throw new IllegalStateException("Update was rejected: " + BenchmarkSupport.bodyText(response));
+            }
+            notFound = BenchmarkSupport.parse("GET /api/nothing/here HTTP/1.1\r\n\r\n");
+        }
+    }
+    
+    @Setup
+    public void setUp() throws Exception {
+        dataDir = BenchmarkSupport.configure(0);
+        server = new SwiftFoodServer(SwiftFoodServer.EngineMode.NIO);
+        router = BenchmarkSupport.apiRouter();
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop();
+        BenchmarkSupport.deleteRecursively(dataDir);
+    }
+    
+    @Benchmark
+    public HttpResponse getPlayer(Requests requests) {
+        return server.handleRequest(requests.getPlayer, "", null);
+    }
+    
+    @Benchmark
+    public HttpResponse getLevels(Requests requests) {
+        return server.handleRequest(requests.getLevels, "", null);
+    }
+    
+    @Benchmark
+    public HttpResponse getLevelsGzip(Requests requests) {
+        return server.handleRequest(requests.getLevelsGzip, "", null);
+    }
+    
+    /** Includes the journal append; fsync is off so the disk does not dominate. */
+    @Benchmark
+    public HttpResponse completeTask(Requests requests) {
+        return server.handleRequest(requests.completeTask, TASK_BODY, null);
+    }
+    
+    /** A full-state save: parsing, bounds checks, the update and its journal append. */
+    @Benchmark
+    public HttpResponse updatePlayer(Requests requests) {
+        return server.handleRequest(requests.updatePlayer, requests.updateBody, null);
+    }
+    
+    @Benchmark
+    public HttpResponse notFound(Requests requests) {
+        return server.handleRequest(requests.notFound, "", null);
+    }
+    
+    @Benchmark
+    public void routeTrie(Requests requests, Blackhole blackhole) {
+        blackhole.consume(router.match(requests.getPlayer));
+        blackhole.consume(router.match(requests.getLevels));
+        blackhole.consume(router.match(requests.completeTask));
+        blackhole.consume(router.match(requests.notFound));
+    }
+    
+    @Benchmark
+    public void routeBaseline(Requests requests, Blackhole blackhole) {
+        blackhole.consume(Baseline.route(requests.getPlayer.method(), requests.getPlayer.path()));
+        blackhole.consume(Baseline.route(requests.getLevels.method(), requests.getLevels.path()));
+        blackhole.consume(Baseline.route(requests.completeTask.method(), requests.completeTask.path()));
+        blackhole.consume(Baseline.route(requests.notFound.method(), requests.notFound.path()));
+    }
+}
@@ -0,0 +1,99 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The per-request HTTP plumbing outside the handlers: parsing a request
+ * head, matching a route, encoding and compressing a response, and
+ * recording metrics. The *Baseline benchmarks run the code these replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpBenchmark {
+    // What a browser sends for an API call
+    private static final String REQUEST_HEAD = "POST /api/player/player_369991300130275328/complete-task HTTP/1.1\r\n"
+            + "Host: localhost:8080\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0\r\n"
+            + "Accept: application/json\r\n"
+            + "Accept-Language: en-US,en;q=0.5\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: 29\r\n"
+            + "Origin: http://localhost:8080\r\n"
+            + "Connection: keep-alive\r\n"
+            + "\r\n";
+    
+    private final byte[] requestBytes = REQUEST_HEAD.getBytes(StandardCharsets.ISO_8859_1);
+    private final ByteBuffer requestBuffer = ByteBuffer.allocate(8192);
+    private final HttpRequestParser parser = new HttpRequestParser();
+    private final HttpResponseWriter writer = new HttpResponseWriter();
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final ResponseCompressor compressor = new ResponseCompressor(ResponseCompressor.DEFAULT_MIN_SIZE, 1);
+    private Router router;
+    private HttpRequestParser playerRequest;
+    private HttpResponse playerResponse;
+    private ByteBuffer levelsJson;
+    
+    @Setup
+    public void setUp() {
+        requestBuffer.put(requestBytes);
+        
+        router = BenchmarkSupport.apiRouter();
+        playerRequest = BenchmarkSupport.parse("GET /api/player/player_369991300130275328 HTTP/1.1\r\n\r\n");
+        
+        PlayerData player = new PlayerData(new PlayerIdGenerator(0).nextId());
+        player.setPlayerName("Benchmark Chef");
+        playerResponse = HttpResponse.json(player.writeJson(JsonWriter.local()));
+        
+        JsonWriter json = JsonWriter.local().beginObject().name("levels").beginArray();
+        for (LevelData level : BenchmarkSupport.levels()) {
+            level.writeJson(json);
+        }
+        levelsJson = ByteBuffer.wrap(json.endArray().endObject().toByteArray());
+    }
+    
+    @Benchmark
+    public int parseRequestHead() {
+        parser.reset();
+        return parser.parse(requestBuffer);
+    }
+    
+    @Benchmark
+    public Baseline.Request parseRequestHeadBaseline() throws IOException {
+        return Baseline.parseRequestHead(requestBytes);
+    }
+    
+    @Benchmark
+    public Router.Route matchRoute() {
+        return router.match(playerRequest);
+    }
+    
+    /** Includes turning the path into a String, which the old chain needed and the trie does not. */
+    @Benchmark
+    public Baseline.Route matchRouteBaseline() {
+        return Baseline.route(playerRequest.method(), playerRequest.path());
+    }
+    
+    @Benchmark
+    public ByteBuffer[] encodeResponse() {
+        return writer.encode(playerResponse, true);
+    }
+    
+    @Benchmark
+    public byte[] gzipLevelCatalog() {
+        return compressor.compress(levelsJson, ResponseCompressor.Encoding.GZIP);
+    }
+    
+    @Benchmark
+    public void recordMetrics() {
+        metrics.recordRequest("GET", "/api/player/{playerId}", 200, 12_345);
+    }
+}
@@ -0,0 +1,133 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Write throughput of the player journal and recovery time of a whole store.
+ *
+ * appendDurable is one mutation's journal work: append a record and wait for
+ * it to be written, with and without fsync. Eight threads append at once, so
+ * with fsync on the score shows how many records share each group commit.
+ *
+ * recover is a restart: the store loads a snapshot of every player and
+ * replays a log holding one change per player behind it. Each measurement
+ * starts from a fresh copy of the same files.
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// Room for a million players in memory
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class JournalBenchmark {
+    @State(Scope.Benchmark)
+    public static class Journal {
+        @Param({"false", "true"})
+        boolean fsync;
+        
+        Path directory;
+        PlayerJournal journal;
+        
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("swiftfood-journal");
+            journal = new PlayerJournal(directory, 0, fsync);
+        }
+        
+        @TearDown
+        public void tearDown() throws IOException {
+            journal.close();
+            BenchmarkSupport.deleteRecursively(directory);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Writer {
+        final String playerId = new PlayerIdGenerator(0).nextId();
+    }
+    
+    /** A store's files as a restart finds them: a snapshot and the log written since. */
+    @State(Scope.Benchmark)
+    public static class StoreFiles {
+        @Param({"1000000"})
+        int players;
+        
+        Path template;
+        Path directory;
+        PlayerStore store;
+        
+        @Setup(Level.Trial)
+        public void writeFiles() throws IOException {
+            Path build = Files.createTempDirectory("swiftfood-store");
+            PlayerStore writer = openStore(build);
+            PlayerIdGenerator ids = new PlayerIdGenerator(0);
+            PlayerData[] created = new PlayerData[players];
+            for (int i = 0; i < players; i++) {
+                created[i] = new PlayerData(ids.nextId());
+                writer.create(created[i]);
+            }
+            writer.snapshot();
+            for (PlayerData player : created) {
+                writer.addXP(player, 25);
+            }
+            writer.flush();
+            
+            // Copied before closing, since closing writes a snapshot that leaves nothing to replay
+            template = Files.createTempDirectory("swiftfood-store-template");
+            copyFiles(build, template);
+            writer.close();
+            BenchmarkSupport.deleteRecursively(build);
+        }
+        
+        @Setup(Level.Iteration)
+        public void copyTemplate() throws IOException {
+            directory = Files.createTempDirectory("swiftfood-store-recover");
+            copyFiles(template, directory);
+        }
+        
+        @TearDown(Level.Iteration)
+        public void closeStore() throws IOException {
+            if (store != null) store.close();
+            store = null;
+            BenchmarkSupport.deleteRecursively(directory);
+        }
+        
+        @TearDown(Level.Trial)
+        public void deleteTemplate() throws IOException {
+            BenchmarkSupport.deleteRecursively(template);
+        }
+        
+        PlayerStore openStore(Path path) throws IOException {
+            // No background snapshots, no eviction: recovery is all that is timed
+            return new PlayerStore(path, false, Long.MAX_VALUE, Long.MAX_VALUE, players + 1);
+        }
+        
+        private static void copyFiles(Path from, Path to) throws IOException {
+            try (var files = Files.list(from)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.copy(file, to.resolve(file.getFileName()));
+                }
+            }
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(8)
+    public void appendDurable(Journal journal, Writer writer) throws IOException {
+        long seq = journal.journal.append(PlayerJournal.ADD_XP, System.currentTimeMillis(), writer.playerId, 25);
+        journal.journal.awaitDurable(seq);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public int recover(StoreFiles files) throws IOException {
+        files.store = files.openStore(files.directory);
+        return files.store.size();
+    }
+}
@@ -0,0 +1,81 @@
+package swiftfood;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Encoding players and the level catalog, and decoding an event batch:
+ * the JSON work behind most requests. The *Baseline benchmarks build the
+ * same documents with the StringBuilder code JsonWriter replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    private PlayerData player;
+    private Baseline.Player baselinePlayer;
+    private List<LevelData> levels;
+    private String eventBatch;
+    
+    @Setup
+    public void setUp() {
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        player = new PlayerData(ids.nextId());
+        player.setPlayerName("Benchmark \"Chef\"");
+        player.addXP(1234);
+        player.addCoins(560);
+        player.completeTask();
+        player.unlockAchievement("First Steps");
+        player.unlockAchievement("Pizza Pro");
+        baselinePlayer = new Baseline.Player(player);
+        
+        levels = BenchmarkSupport.levels();
+        
+        StringBuilder batch = new StringBuilder("{\"events\":[");
+        for (int i = 0; i < 20; i++) {
+            if (i > 0) batch.append(',');
+            batch.append("{\"type\":\"complete-task\",\"playerId\":\"").append(player.getPlayerId())
+                    .append("\",\"levelId\":1,\"taskIndex\":").append(i % 3).append('}');
+        }
+        eventBatch = batch.append("]}").toString();
+    }
+    
+    @Benchmark
+    public int playerWriteJson() {
+        return player.writeJson(JsonWriter.local()).size();
+    }
+    
+    @Benchmark
+    public String playerToJson() {
+        return player.toJson();
+    }
+    
+    @Benchmark
+    public String playerToJsonBaseline() {
+        return baselinePlayer.toJson();
+    }
+    
+    @Benchmark
+    public byte[] levelCatalog() {
+        JsonWriter json = JsonWriter.local();
+        json.beginObject().name("levels").beginArray();
+        for (LevelData level : levels) {
+            level.writeJson(json);
+        }
+        return json.endArray().endObject().toByteArray();
+    }
+    
+    @Benchmark
+    public byte[] levelCatalogBaseline() {
+        return Baseline.levelsJson(levels);
+    }
+    
+    @Benchmark
+    public List<GameEvent> parseEventBatch() {
+        return GameEvent.parseBatch(eventBatch);
+    }
+}
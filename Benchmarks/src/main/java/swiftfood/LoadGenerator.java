@@ -0,0 +1,298 @@
+package swiftfood;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * LoadGenerator starts an embedded SwiftFoodServer and drives it over
+ * loopback from a number of client threads, each on its own connection,
+ * with a fixed mix of player reads, catalog reads, task completions and
+ * leaderboard queries. It reports throughput, responses by status and the
+ * latency histogram, so runs can be compared across releases.
+ *
+ * Usage: java -cp target/benchmarks.jar swiftfood.LoadGenerator
+ *        [--engine nio|blocking] [--concurrency 16] [--duration 10]
+ *        [--warmup 3] [--players 1000] [--port 18080]
+ */
+public class LoadGenerator {
+    private final SwiftFoodServer.EngineMode engine;
+    private final int concurrency;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int playerCount;
+    private final int port;
+    
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder[] responsesByClass = new LongAdder[6];
+    private final LongAdder failures = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private volatile boolean recording = false;
+    private volatile boolean running = true;
+    
+    LoadGenerator(SwiftFoodServer.EngineMode engine, int concurrency, int durationSeconds, int warmupSeconds,
+                  int playerCount, int port) {
+        this.engine = engine;
+        this.concurrency = concurrency;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.playerCount = playerCount;
+        this.port = port;
+        for (int i = 0; i < responsesByClass.length; i++) {
+            responsesByClass[i] = new LongAdder();
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadGenerator(
+                SwiftFoodServer.EngineMode.valueOf(options.getOrDefault("engine", "nio").toUpperCase()),
+                Integer.parseInt(options.getOrDefault("concurrency", "16")),
+                Integer.parseInt(options.getOrDefault("duration", "10")),
+                Integer.parseInt(options.getOrDefault("warmup", "3")),
+                Integer.parseInt(options.getOrDefault("players", "1000")),
+                Integer.parseInt(options.getOrDefault("port", "18080"))).run();
+    }
+    
+    void run() throws Exception {
+        Path dataDir = BenchmarkSupport.configure(port);
+        SwiftFoodServer server = new SwiftFoodServer(engine);
+        Thread serverThread = new Thread(server::start, "swiftfood-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        try {
+            awaitListening();
+            List<String> playerIds = seedPlayers();
+            
+            List<Thread> clients = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                Thread client = new Thread(new Client(playerIds, i), "load-client-" + i);
+                client.start();
+                clients.add(client);
+            }
+            Thread.sleep(warmupSeconds * 1000L);
+            recording = true;
+            long start = System.nanoTime();
+            Thread.sleep(durationSeconds * 1000L);
+            recording = false;
+            long elapsed = System.nanoTime() - start;
+            running = false;
+            for (Thread client : clients) {
+                client.join();
+            }
+            report(elapsed);
+        } finally {
+            server.stop();
+            BenchmarkSupport.deleteRecursively(dataDir);
+        }
+    }
+    
+    private void awaitListening() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try {
+                new Socket(InetAddress.getLoopbackAddress(), port).close();
+                return;
+            } catch (IOException e) {
+                Thread.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Server did not start listening on port " + port);
+    }
+    
+    private List<String> seedPlayers() throws IOException {
+        List<String> ids = new ArrayList<>(playerCount);
+        Connection connection = new Connection();
+        for (int i = 0; i < playerCount; i++) {
+            if (connection.closed) {
+                connection.close();
+                connection = new Connection();
+            }
+            String body = "{\"playerName\":\"Load " + i + "\"}";
+            String response = connection.exchange("POST", "/api/player", body, true);
+            int start = response.indexOf("\"playerId\":\"") + 12;
+            ids.add(response.substring(start, response.indexOf('"', start)));
+        }
+        connection.close();
+        return ids;
+    }
+    
+    private void report(long elapsedNanos) {
+        long total = 0;
+        for (LongAdder count : responsesByClass) {
+            total += count.sum();
+        }
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nEngine %s, %d connections, %d players, %ds measured after %ds warmup%n",
+                engine.name().toLowerCase(), concurrency, playerCount, durationSeconds, warmupSeconds);
+        System.out.printf("Throughput: %.0f requests/s (%d requests)%n", total / seconds, total);
+        for (int i = 1; i < responsesByClass.length; i++) {
+            long count = responsesByClass[i].sum();
+            if (count > 0) System.out.printf("  %dxx: %d%n", i, count);
+        }
+        if (failures.sum() > 0) System.out.printf("  connection failures: %d%n", failures.sum());
+        
+        long recorded = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            recorded += latency.count(i);
+        }
+        if (recorded == 0) return;
+        System.out.printf("Latency: mean %.1f us, max %.1f us%n", latency.sumNanos() / 1e3 / recorded, maxNanos.get() / 1e3);
+        long cumulative = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKETS && cumulative < recorded; i++) {
+            long count = latency.count(i);
+            cumulative += count;
+            if (count == 0) continue;
+            // The last bucket has no upper bound: it starts where the one before it ends
+            boolean last = i == LatencyHistogram.BUCKETS - 1;
+            System.out.printf("  %s %8d us  %10d  %6.2f%%  cumulative %7.3f%%%n", last ? ">=" : "< ",
+                    1L << (last ? i - 1 : i), count, 100.0 * count / recorded, 100.0 * cumulative / recorded);
+        }
+    }
+    
+    /** One client: a connection and a fixed request mix, run until told to stop. */
+    private class Client implements Runnable {
+        private final List<String> playerIds;
+        private final Random random;
+        
+        Client(List<String> playerIds, int seed) {
+            this.playerIds = playerIds;
+            this.random = new Random(seed);
+        }
+        
+        @Override
+        public void run() {
+            Connection connection = null;
+            while (running) {
+                try {
+                    if (connection == null) connection = new Connection();
+                    String playerId = playerIds.get(random.nextInt(playerIds.size()));
+                    int pick = random.nextInt(10);
+                    long start = System.nanoTime();
+                    if (pick < 5) {
+                        connection.exchange("GET", "/api/player/" + playerId, null, false);
+                    } else if (pick < 7) {
+                        connection.exchange("GET", "/api/levels", null, false);
+                    } else if (pick < 9) {
+                        String body = "{\"levelId\":1,\"taskIndex\":" + random.nextInt(3) + "}";
+                        connection.exchange("POST", "/api/player/" + playerId + "/complete-task", body, false);
+                    } else {
+                        connection.exchange("GET", "/api/leaderboard?limit=10", null, false);
+                    }
+                    long nanos = System.nanoTime() - start;
+                    if (recording) {
+                        latency.record(nanos);
+                        maxNanos.accumulate(nanos);
+                        responsesByClass[Math.min(Math.max(connection.status / 100, 0), 5)].increment();
+                    }
+                    if (connection.closed) {
+                        connection.close();
+                        connection = null;
+                    }
+                } catch (IOException e) {
+                    if (recording) failures.increment();
+                    if (connection != null) connection.close();
+                    connection = null;
+                }
+            }
+            if (connection != null) connection.close();
+        }
+    }
+    
+    /**
+     * A minimal HTTP/1.1 client connection: requests are written whole and
+     * responses read by Content-Length. The blocking engine closes after every
+     * response, which {@link #closed} reports.
+     */
+    private class Connection implements Closeable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        int status;
+        boolean closed;
+        
+        Connection() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+            in = socket.getInputStream();
+        }
+        
+        /** Sends one request and reads its response; the body is returned only when asked for. */
+        String exchange(String method, String path, String body, boolean wantBody) throws IOException {
+            StringBuilder request = new StringBuilder(256)
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: localhost\r\n")
+                    .append("Accept-Encoding: gzip\r\n");
+            byte[] bodyBytes = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+            if (bodyBytes != null) {
+                request.append("Content-Type: application/json\r\n")
+                        .append("Content-Length: ").append(bodyBytes.length).append("\r\n");
+            }
+            out.write(request.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+            if (bodyBytes != null) out.write(bodyBytes);
+            out.flush();
+            return readResponse(wantBody);
+        }
+        
+        private String readResponse(boolean wantBody) throws IOException {
+            int length = 0;
+            int headEnd = -1;
+            while (headEnd < 0) {
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) throw new EOFException("Connection closed before the response head");
+                length += read;
+                headEnd = indexOfBlankLine(length);
+                if (headEnd < 0 && length == buffer.length) throw new IOException("Response head too large");
+            }
+            String head = new String(buffer, 0, headEnd, StandardCharsets.ISO_8859_1);
+            status = Integer.parseInt(head.substring(9, 12));
+            closed = head.contains("\r\nConnection: close");
+            int contentLength = 0;
+            int index = head.indexOf("\r\nContent-Length: ");
+            if (index >= 0) {
+                int end = head.indexOf("\r\n", index + 2);
+                contentLength = Integer.parseInt(head.substring(index + 18, end < 0 ? head.length() : end).trim());
+            }
+            
+            // The body follows the head in the same buffer, or is drained past it
+            int bodyStart = headEnd + 4;
+            int received = length - bodyStart;
+            ByteArrayOutputStream kept = wantBody ? new ByteArrayOutputStream(contentLength) : null;
+            if (kept != null) kept.write(buffer, bodyStart, Math.min(received, contentLength));
+            while (received < contentLength) {
+                int read = in.read(buffer, 0, Math.min(buffer.length, contentLength - received));
+                if (read < 0) throw new EOFException("Connection closed in the response body");
+                if (kept != null) kept.write(buffer, 0, read);
+                received += read;
+            }
+            return kept == null ? null : kept.toString(StandardCharsets.UTF_8);
+        }
+        
+        private int indexOfBlankLine(int length) {
+            for (int i = 3; i < length; i++) {
+                if (buffer[i] == '\n' && buffer[i - 1] == '\r' && buffer[i - 2] == '\n' && buffer[i - 3] == '\r') {
+                    return i - 3;
+                }
+            }
+            return -1;
+        }
+        
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to do for a connection being dropped
+            }
+        }
+    }
+}
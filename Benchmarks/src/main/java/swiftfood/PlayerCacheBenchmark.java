@@ -0,0 +1,104 @@
+package swiftfood;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Player lookups across a working set larger than the player cache, so some
+ * reads are served from memory and the rest load a player back from the cold
+ * file and evict another. The sampled latencies show both: hits at the low
+ * percentiles, cold loads in the tail.
+ *
+ * Players are read uniformly, or with a hotspot where a fifth of them take
+ * four reads in five. After each iteration the hit rate and the mean and
+ * slowest cold load of that iteration are printed.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlayerCacheBenchmark {
+    private static final double HOTSPOT_PLAYERS = 0.2;
+    private static final double HOTSPOT_READS = 0.8;
+    
+    @Param({"200000"})
+    int players;
+    
+    @Param({"20000", "100000"})
+    int cachedPlayers;
+    
+    @Param({"uniform", "hotspot"})
+    String access;
+    
+    private Path directory;
+    private PlayerStore store;
+    private long[] keys;
+    private long hits;
+    private long loads;
+    private long loadNanos;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("swiftfood-cache");
+        // No background snapshots: lookups are all that is timed
+        store = new PlayerStore(directory, false, Long.MAX_VALUE, Long.MAX_VALUE, cachedPlayers);
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        keys = new long[players];
+        for (int i = 0; i < players; i++) {
+            PlayerData player = new PlayerData(ids.nextId());
+            store.create(player);
+            keys[i] = player.getKey();
+        }
+        // Shuffled so the hotspot is not simply the players created last, which start in memory
+        Random random = new Random(1);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+    
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        hits = store.getHits();
+        loads = store.getLoads();
+        loadNanos = store.getLoadNanos();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void printCounts() {
+        long iterationHits = store.getHits() - hits;
+        long iterationLoads = store.getLoads() - loads;
+        long reads = iterationHits + iterationLoads;
+        System.out.printf("%nhit rate %.1f%% of %d reads, %d cold loads averaging %.1f us (slowest so far %.1f us)%n",
+                reads == 0 ? 0 : 100.0 * iterationHits / reads, reads, iterationLoads,
+                iterationLoads == 0 ? 0 : (store.getLoadNanos() - loadNanos) / 1000.0 / iterationLoads,
+                store.getMaxLoadNanos() / 1000.0);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+    
+    @Benchmark
+    public PlayerData read() {
+        return store.get(nextKey());
+    }
+    
+    private long nextKey() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int bound = keys.length;
+        if (access.equals("hotspot") && random.nextDouble() < HOTSPOT_READS) {
+            bound = (int) (keys.length * HOTSPOT_PLAYERS);
+        }
+        return keys[random.nextInt(bound)];
+    }
+}
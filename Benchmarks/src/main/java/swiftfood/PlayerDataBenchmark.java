@@ -0,0 +1,137 @@
+package swiftfood;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Player mutation and leaderboard queries. Mutations are measured on a
+ * player of the thread's own and on one player shared by four threads,
+ * where compare-and-set retries show up. Leaderboard queries run against
+ * boards of each size in Board, alone and while other threads keep
+ * changing players' scores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// Room for a million ranked players
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class PlayerDataBenchmark {
+    private static final int TOP_LIMIT = 10;
+    
+    private final PlayerIdGenerator ids = new PlayerIdGenerator(0);
+    private PlayerData shared;
+    private PlayerUpdate update;
+    
+    @State(Scope.Thread)
+    public static class Own {
+        PlayerData player;
+        
+        @Setup
+        public void setUp(PlayerDataBenchmark benchmark) {
+            player = benchmark.newPlayer();
+        }
+    }
+    
+    /**
+     * A leaderboard of random players, bulk-loaded the way startup loads it
+     * and then following every player's changes.
+     */
+    @State(Scope.Benchmark)
+    public static class Board {
+        @Param({"100000", "1000000"})
+        int players;
+        
+        Leaderboard leaderboard;
+        PlayerData[] ranked;
+        PlayerData middle;
+        
+        @Setup
+        public void setUp(PlayerDataBenchmark benchmark) {
+            leaderboard = new Leaderboard();
+            ranked = new PlayerData[players];
+            Leaderboard.Loader loader = leaderboard.loader();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < players; i++) {
+                PlayerData player = benchmark.newPlayer();
+                player.addXP(random.nextInt(50_000));
+                player.addCoins(random.nextInt(5_000));
+                loader.add(player);
+                ranked[i] = player;
+            }
+            loader.finish();
+            for (PlayerData player : ranked) {
+                leaderboard.attach(player);
+            }
+            middle = benchmark.newPlayer();
+            middle.addXP(25_000);
+            leaderboard.add(middle);
+        }
+        
+        PlayerData randomPlayer() {
+            return ranked[ThreadLocalRandom.current().nextInt(ranked.length)];
+        }
+    }
+    
+    @Setup
+    public void setUp() {
+        shared = newPlayer();
+        update = PlayerUpdate.parse("{\"xp\":120,\"coins\":300,\"completedTasks\":4}");
+    }
+    
+    PlayerData newPlayer() {
+        PlayerData player = new PlayerData(ids.nextId());
+        player.setPlayerName("Chef");
+        return player;
+    }
+    
+    @Benchmark
+    public void addXp(Own own) {
+        own.player.addXP(10);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void addXpShared() {
+        shared.addXP(10);
+    }
+    
+    @Benchmark
+    public void applyUpdate(Own own) {
+        own.player.applyUpdate(update);
+    }
+    
+    /** The common case once earned: the bit is already set and nothing is published. */
+    @Benchmark
+    public boolean unlockHeldAchievement(Own own) {
+        return own.player.unlockAchievement("First Steps");
+    }
+    
+    @Benchmark
+    public long leaderboardRank(Board board) {
+        return board.leaderboard.rank(Leaderboard.Metric.XP, board.middle);
+    }
+    
+    @Benchmark
+    public List<Leaderboard.Entry> leaderboardTop(Board board) {
+        return board.leaderboard.top(Leaderboard.Metric.XP, TOP_LIMIT);
+    }
+    
+    /** Task completions moving random players up the board, re-ranking each one. */
+    @Benchmark
+    @Group("rankUnderWrites")
+    @GroupThreads(2)
+    public void scoreWriter(Board board) {
+        board.randomPlayer().addXP(25);
+    }
+    
+    /** Rank lookups for random players while the writers move them. */
+    @Benchmark
+    @Group("rankUnderWrites")
+    @GroupThreads(2)
+    public long rankReader(Board board) {
+        return board.leaderboard.rank(Leaderboard.Metric.XP, board.randomPlayer());
+    }
+}
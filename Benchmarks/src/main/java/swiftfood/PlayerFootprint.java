@@ -0,0 +1,65 @@
+package swiftfood;
+
+import java.lang.management.*;
+import java.lang.ref.Reference;
+import java.util.*;
+
+/**
+ * PlayerFootprint measures how much heap a player takes: it creates the
+ * same number of new players in the old layout (a map of boxed achievement
+ * flags and two Dates each) and in the current one, and compares the heap
+ * in use after a full collection before and after each batch. The player
+ * IDs and the array holding the players are allocated up front, so they are
+ * not counted.
+ *
+ * Usage: java -XX:+UseSerialGC -Xmx3g -cp target/benchmarks.jar swiftfood.PlayerFootprint [--players 1000000]
+ */
+public class PlayerFootprint {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        int count = Integer.parseInt(options.getOrDefault("players", "1000000"));
+        
+        PlayerIdGenerator ids = new PlayerIdGenerator(0);
+        String[] playerIds = new String[count];
+        for (int i = 0; i < count; i++) {
+            playerIds[i] = ids.nextId();
+        }
+        Object[] players = new Object[count];
+        
+        long start = usedAfterGc();
+        for (int i = 0; i < count; i++) {
+            players[i] = new Baseline.Player(playerIds[i]);
+        }
+        long before = usedAfterGc() - start;
+        Arrays.fill(players, null);
+        
+        start = usedAfterGc();
+        for (int i = 0; i < count; i++) {
+            players[i] = new PlayerData(playerIds[i]);
+        }
+        long after = usedAfterGc() - start;
+        Reference.reachabilityFence(players);
+        
+        System.out.printf("Players:        %d%n", count);
+        System.out.printf("Old layout:     %d bytes per player%n", before / count);
+        System.out.printf("Current layout: %d bytes per player%n", after / count);
+    }
+    
+    /** Heap in use once a few full collections have had nothing left to free. */
+    private static long usedAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) return now;
+            used = now;
+        }
+        return used;
+    }
+}